@@ -0,0 +1,116 @@
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Operations measured by the JMH benchmarks in bench/benchmarks, set up on a realistic search state.
+// JMH only generates code for benchmarks in a named package, which cannot reference the classes of the
+// solver in the unnamed package. The benchmarks look these factories up once by reflection in their
+// setup and then only call the returned IntSupplier, a monomorphic interface call that the JIT inlines.
+public class KnightFixtures {
+
+    static {
+        // The searches log every solution and timeout, only errors are of interest here
+        Logger.getLogger("").setLevel(Level.SEVERE);
+    }
+
+    // Search with the path halfway along a heuristic tour loaded into its arena, the state of the hot paths
+    private static class MidTour {
+        final TreeSearch search;
+        final int node;         // Handle of the last node of the path
+        final int children;     // Arena size before the node is expanded, restored after every expansion
+        final int first;        // Two squares reachable from the node
+        final int second;
+
+        MidTour(int size) {
+            Problem problem = newProblem(size, 1);
+            BacktrackingSearch tour = new BacktrackingSearch(problem, TreeSearch.Strategy.DFS_H2);
+            if (!tour.search()) {
+                throw new IllegalStateException("No tour found for the benchmark state on " + size + "x" + size);
+            }
+            search = new TreeSearch(problem);
+            node = search.load(tour.path, BoardTopology.of(size).squares / 2 + 1);
+            children = search.arena.size();
+            search.expand(node, TreeSearch.Strategy.DFS);
+            first = search.arena.square(children);
+            second = search.arena.square(search.arena.size() - 1);
+            search.arena.truncate(children);
+            problem.deadline().close();
+        }
+    }
+
+    // Method to get TreeSearch.expand with the move order of a strategy, dropping the children after every call
+    public static IntSupplier expand(int size, String strategy) {
+        MidTour state = new MidTour(size);
+        TreeSearch.Strategy order = TreeSearch.Strategy.valueOf(strategy);
+        return () -> {
+            int count = state.search.expand(state.node, order);
+            state.search.arena.truncate(state.children);
+            return count;
+        };
+    }
+
+    // Method to get TreeSearch.countPossibleMoves of a square reachable from the node
+    public static IntSupplier countPossibleMoves(int size) {
+        MidTour state = new MidTour(size);
+        return () -> state.search.countPossibleMoves(state.first);
+    }
+
+    // Method to get TreeSearch.compareDistanceToCorners of two squares reachable from the node
+    public static IntSupplier compareDistanceToCorners(int size) {
+        MidTour state = new MidTour(size);
+        return () -> state.search.compareDistanceToCorners(state.first, state.second);
+    }
+
+    // Method to get the MoveScorer of a heuristic strategy on a square reachable from the node
+    public static IntSupplier score(int size, String strategy) {
+        MidTour state = new MidTour(size);
+        MoveScorer scorer = MoveScorer.of(TreeSearch.Strategy.valueOf(strategy));
+        if (scorer == null) {
+            throw new IllegalArgumentException(strategy + " keeps the move order and has no move scorer");
+        }
+        return () -> scorer.score(state.search.topology, state.search, state.first);
+    }
+
+    // Method to get the per-node time limit check that reads the clock
+    public static IntSupplier clockCheck() {
+        long startTime = System.currentTimeMillis();
+        long limit = 60 * 1000L;
+        return () -> System.currentTimeMillis() - startTime > limit ? 1 : 0;
+    }
+
+    // Method to get the per-node time limit check that reads the flag of a Deadline
+    public static IntSupplier deadlineCheck() {
+        Deadline deadline = new Deadline(System.currentTimeMillis(), 1);
+        return () -> deadline.expired() ? 1 : 0;
+    }
+
+    // Method to get a complete solve of a fresh problem, 1 if it found a tour. The tour is not written to a
+    // file, and a positive telemetry interval reports the solves while they are measured.
+    public static IntSupplier solve(int size, String strategy, int timeLimit, boolean inPlace, long telemetryMillis) {
+        TreeSearch.Strategy solved = TreeSearch.Strategy.valueOf(strategy);
+        SearchTelemetry telemetry = telemetryMillis > 0 ? new SearchTelemetry(telemetryMillis, null) : null;
+        if (telemetry != null) {
+            telemetry.start();
+        }
+        return () -> {
+            Problem problem = newProblem(size, timeLimit);
+            problem.inPlace = inPlace;
+            problem.telemetry = telemetry;
+            try {
+                return new TreeSearch(problem).solve(problem, solved) ? 1 : 0;
+            } finally {
+                problem.deadline().close();
+            }
+        };
+    }
+
+    // Method to create a fresh problem for a board size
+    private static Problem newProblem(int size, int timeLimit) {
+        Problem problem = new Problem();
+        problem.size = size;
+        problem.timeLimit = timeLimit;
+        problem.startTime = System.currentTimeMillis();
+        problem.pathFile = null;
+        return problem;
+    }
+}
@@ -0,0 +1,175 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// JMH benchmarks of the search hot paths and of complete solves on 8, 16, 32, 41 and 52 boards.
+// The measured operations are built by KnightFixtures in the unnamed package of the solver, see there.
+// Run from the project root, the Benchmarks section of the README lists more options:
+//   mvn -B test-compile exec:exec -Djmh.args="KnightBenchmarks.expand -p size=8,16 -rf json -rff bench-results.json -prof gc"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnightBenchmarks {
+
+    // Method to build an operation with a factory method of KnightFixtures
+    static IntSupplier fixture(String name, Object... args) {
+        try {
+            for (Method method : Class.forName("KnightFixtures").getMethods()) {
+                if (method.getName().equals(name)) {
+                    return (IntSupplier) method.invoke(null, args);
+                }
+            }
+            throw new IllegalStateException("KnightFixtures has no fixture " + name);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Fixture " + name + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Fixture " + name + " cannot be built", e);
+        }
+    }
+
+    // Node expansion with the move order of every depth-first strategy
+    @State(Scope.Thread)
+    public static class Expand {
+        @Param({"8", "16", "32", "41", "52"})
+        public int size;
+
+        @Param({"DFS", "DFS_H1B", "DFS_H2", "DFS_H3"})
+        public String strategy;
+
+        IntSupplier operation;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            operation = fixture("expand", size, strategy);
+        }
+    }
+
+    // Move scorer of every heuristic strategy
+    @State(Scope.Thread)
+    public static class Score {
+        @Param({"8", "16", "32", "41", "52"})
+        public int size;
+
+        @Param({"DFS_H1B", "DFS_H2", "DFS_H3"})
+        public String heuristic;
+
+        IntSupplier operation;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            operation = fixture("score", size, heuristic);
+        }
+    }
+
+    // Heuristic helpers of the node search
+    @State(Scope.Thread)
+    public static class Heuristics {
+        @Param({"8", "16", "32", "41", "52"})
+        public int size;
+
+        IntSupplier countPossibleMoves;
+        IntSupplier compareDistanceToCorners;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            countPossibleMoves = fixture("countPossibleMoves", size);
+            compareDistanceToCorners = fixture("compareDistanceToCorners", size);
+        }
+    }
+
+    // Per-node time limit checks: reading the clock against reading the flag of a Deadline
+    @State(Scope.Thread)
+    public static class TimeCheck {
+        IntSupplier clock;
+        IntSupplier deadline;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            clock = fixture("clockCheck");
+            deadline = fixture("deadlineCheck");
+        }
+    }
+
+    // Complete solves of every strategy. A solve that times out, after timeLimit minutes, does so on every
+    // iteration, so narrow the sizes and strategies with -p for the slow combinations.
+    @State(Scope.Thread)
+    public static class Solve {
+        @Param({"8", "16", "32", "41", "52"})
+        public int size;
+
+        @Param({"BFS", "DFS", "DFS_H1B", "DFS_H2", "PORTFOLIO", "DIVIDE_AND_CONQUER", "DFS_H3"})
+        public String strategy;
+
+        @Param({"1"})
+        public int timeLimit;
+
+        @Param({"false"})
+        public boolean inPlace;
+
+        @Param({"0"})
+        public long telemetryMillis;
+
+        IntSupplier operation;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            operation = fixture("solve", size, strategy, timeLimit, inPlace, telemetryMillis);
+        }
+    }
+
+    @Benchmark
+    public int expand(Expand state) {
+        return state.operation.getAsInt();
+    }
+
+    @Benchmark
+    public int score(Score state) {
+        return state.operation.getAsInt();
+    }
+
+    @Benchmark
+    public int countPossibleMoves(Heuristics state) {
+        return state.countPossibleMoves.getAsInt();
+    }
+
+    @Benchmark
+    public int compareDistanceToCorners(Heuristics state) {
+        return state.compareDistanceToCorners.getAsInt();
+    }
+
+    @Benchmark
+    public int clockCheck(TimeCheck state) {
+        return state.clock.getAsInt();
+    }
+
+    @Benchmark
+    public int deadlineCheck(TimeCheck state) {
+        return state.deadline.getAsInt();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int solve(Solve state) {
+        return state.operation.getAsInt();
+    }
+}
@@ -0,0 +1,232 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+// Solver that finds a tour from every start square of a board in one run.
+// Only one square of every orbit of the eight board symmetries is searched, the tours of the other
+// squares are the mapped tours of their representative. The searches run concurrently with the
+// in-place engine and share the neighbor table of the board. A closed tour passes through every
+// square, so in closed tour mode a single tour rotated to each start square covers the whole board.
+public class AllStartsSolver {
+    private static final String HEADER = "x,y,status,source_x,source_y,symmetry,nodes_created,nodes_expanded,elapsed_ms,path";
+
+    Logger logger = Logger.getLogger(AllStartsSolver.class.getName());
+    Problem problem;
+    TreeSearch.Strategy strategy;
+
+    private final int workers;
+    private final Path resultsFile;
+    private final Path outputDirectory;
+    private final BoardTopology topology;
+    private final BoardSymmetry symmetry;
+    private final int anchor;   // Start square of the single search in closed tour mode
+    private final Set<Problem> running = ConcurrentHashMap.newKeySet();    // Searches in progress, stopped by cancel
+    private volatile boolean cancelled = false;
+
+    // Outcome of the search from one representative square
+    private static class Solution {
+        int[] path;
+        String status;
+        long createdNodes;
+        long expandedNodes;
+        long elapsedMillis;
+    }
+
+    // Constructor to initialize the solver with the problem options and the output locations
+    public AllStartsSolver(Problem problem, TreeSearch.Strategy strategy, int workers, String resultsFile, String outputDirectory) {
+        this.problem = problem;
+        this.strategy = strategy;
+        this.workers = Math.max(1, workers);
+        this.resultsFile = Paths.get(resultsFile);
+        this.outputDirectory = Paths.get(outputDirectory);
+        this.topology = BoardTopology.of(problem.size);
+        this.symmetry = new BoardSymmetry(problem.size);
+        this.anchor = topology.square((problem.size + 1) / 2, (problem.size + 1) / 2);
+    }
+
+    // Method to solve every start square, returns true if a tour was found from all of them
+    public boolean solve() {
+        if (strategy != TreeSearch.Strategy.DFS && strategy != TreeSearch.Strategy.DFS_H1B
+                && strategy != TreeSearch.Strategy.DFS_H2 && strategy != TreeSearch.Strategy.DFS_H3) {
+            logger.warning("All start squares mode supports the DFS, DFS_H1B, DFS_H2 and DFS_H3 strategies.");
+            return false;
+        }
+        if (!problem.isSquareBoard()) {
+            logger.warning("All start squares mode maps tours by the board symmetries and only supports full square boards.");
+            return false;
+        }
+        if (problem.closedTour && topology.squares % 2 == 1) {
+            logger.info("No closed tour exists on a board with an odd number of squares.");
+            return false;
+        }
+
+        // Search from the representative of every orbit, or from the center for a single closed tour
+        Map<Integer, Solution> solutions = new TreeMap<>();
+        if (problem.closedTour) {
+            solutions.put(anchor, search(anchor));
+        } else {
+            for (int square = 0; square < topology.squares; square++) {
+                solutions.put(symmetry.canonical(square), null);
+            }
+            if (!searchAll(solutions)) {
+                return false;
+            }
+        }
+        logger.info("All start squares: " + topology.squares + " squares, " + solutions.size() + " searched on "
+                + workers + " workers");
+
+        for (Solution solution : solutions.values()) {
+            problem.createdNodes += solution.createdNodes;
+            problem.expandedNodes += solution.expandedNodes;
+        }
+        return writeResults(solutions);
+    }
+
+    // Method to search from every representative square on the worker pool
+    private boolean searchAll(Map<Integer, Solution> solutions) {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Integer> squares = new ArrayList<>(solutions.keySet());
+            List<Callable<Solution>> tasks = new ArrayList<>();
+            for (int square : squares) {
+                tasks.add(() -> search(square));
+            }
+            List<Future<Solution>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < squares.size(); i++) {
+                solutions.put(squares.get(i), futures.get(i).get());
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            logger.warning("Search from a start square failed." + e.getCause());
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Method to stop the running searches and skip the remaining squares, each of them still gets its record
+    public void cancel() {
+        cancelled = true;
+        for (Problem local : running) {
+            local.deadline().cancel();
+        }
+    }
+
+    // Method to search for a tour from one start square with its own counters and time limit
+    private Solution search(int start) {
+        Problem local = problem.copyOptions();
+        local.startX = topology.x(start);
+        local.startY = topology.y(start);
+        local.startTime = System.currentTimeMillis();
+        local.createdNodes = 0;
+
+        Solution solution = new Solution();
+        // On a board with an odd number of squares a tour alternates colors and has one more square
+        // of the color of the corners, so it can only start on that color
+        if (topology.squares % 2 == 1 && (local.startX + local.startY) % 2 == 1) {
+            solution.status = "no solution";
+            return solution;
+        }
+        long begin = System.nanoTime();
+        running.add(local);
+        try {
+            if (cancelled) {
+                local.deadline().cancel();
+            }
+            BacktrackingSearch engine = new BacktrackingSearch(local, strategy);
+            if (!cancelled && engine.search()) {
+                solution.path = engine.path.clone();
+                solution.status = "found";
+            } else {
+                solution.status = local.deadline().cancelled() ? "cancelled" : engine.timedOut ? "timeout" : "no solution";
+            }
+        } catch (OutOfMemoryError e) {
+            solution.status = "out of memory";
+        } finally {
+            running.remove(local);
+            local.deadline().close();
+        }
+        solution.elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+        solution.createdNodes = local.createdNodes;
+        solution.expandedNodes = local.expandedNodes;
+        return solution;
+    }
+
+    // Method to map the tours onto every start square, write them and write one record per square
+    private boolean writeResults(Map<Integer, Solution> solutions) {
+        int found = 0;
+        try {
+            Files.createDirectories(outputDirectory);
+            try (BufferedWriter results = Files.newBufferedWriter(resultsFile)) {
+                results.write(HEADER);
+                results.newLine();
+                for (int square = 0; square < topology.squares; square++) {
+                    int source = problem.closedTour ? anchor : symmetry.canonical(square);
+                    Solution solution = solutions.get(source);
+                    int mapping = problem.closedTour ? 0 : symmetry.fromCanonical(square);
+                    String status = solution.status;
+                    String file = "";
+                    if (solution.path != null) {
+                        int[] tour = symmetry.apply(mapping, solution.path, solution.path.length);
+                        int offset = 0;
+                        while (tour[offset] != square) {
+                            offset++;   // Rotates a closed tour to begin on the square, open tours begin there already
+                        }
+                        file = outputDirectory.resolve("tour-" + topology.x(square) + "-" + topology.y(square) + ".bin").toString();
+                        status = writeTour(tour, offset, file) ? "found" : "invalid";
+                        if (status.equals("found")) {
+                            found++;
+                        } else {
+                            file = "";
+                        }
+                    }
+                    results.write(topology.x(square) + "," + topology.y(square) + "," + status + ","
+                            + topology.x(source) + "," + topology.y(source) + ","
+                            + (problem.closedTour ? "rotation" : BoardSymmetry.name(mapping)) + ","
+                            + solution.createdNodes + "," + solution.expandedNodes + "," + solution.elapsedMillis + "," + file);
+                    results.newLine();
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to write the all start squares results." + e);
+            return false;
+        }
+        logger.info("All start squares: tours found from " + found + " of " + topology.squares
+                + " squares, results in " + resultsFile);
+        return found == topology.squares;
+    }
+
+    // Method to validate a tour beginning at the offset and write it to its own file
+    private boolean writeTour(int[] tour, int offset, String file) throws IOException {
+        TourValidator validator = new TourValidator(problem.size);
+        for (int i = 0; i < tour.length; i++) {
+            validator.accept(tour[(offset + i) % tour.length]);
+        }
+        if (!validator.isValid()) {
+            logger.warning("Mapped tour for " + file + " is invalid: " + validator.getError());
+            return false;
+        }
+        PathWriter writer = new PathWriter(topology, file, problem.textPath, problem.closedTour);
+        writer.logSummary = false;
+        writer.writeAll(tour, offset, tour.length);
+        writer.close();
+        return true;
+    }
+}
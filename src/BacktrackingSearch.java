@@ -0,0 +1,435 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+// Depth-first search that keeps one mutable board and makes and unmakes moves in place.
+// It explores the same tree in the same order as TreeSearch for DFS, DFS_H1B, DFS_H2 and DFS_H3,
+// but the search loop itself does not allocate.
+public class BacktrackingSearch implements MoveScorer.Board {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;    // Step of the SplitMix64 shuffle state
+
+    Logger logger = Logger.getLogger(BacktrackingSearch.class.getName());
+    Problem problem;
+    TreeSearch.Strategy strategy;
+
+    private final BoardTopology topology;
+    private final MoveScorer scorer;       // Orders the candidate moves, null to keep the order of the directions
+    private final boolean[] visited;       // The single mutable board
+    private final byte[] degree;           // Remaining unvisited neighbors of every square
+    private final int[] moves;             // Ordered candidate moves, 8 slots per depth
+    private final int[] moveCount;         // Number of candidate moves generated at each depth
+    private final int[] cursor;            // Index of the next candidate to try at each depth
+    private final int[] keys = new int[8]; // Heuristic sort keys of the candidates being ordered
+    private final boolean closed;          // Whether the tour must end a knight move from the start square
+    private final boolean[] returnSquare;  // Neighbors of the start square, one of them must be the last square
+    private final boolean pruneDeadEnds;   // Skip moves that leave an unreachable or a second forced last square
+    private final int connectivityInterval;// Depth interval of the unvisited region connectivity check, 0 when off
+    private int[] queue;                   // Flood fill queue and visit marks of the connectivity check
+    private int[] seen;
+    private int mark = 0;
+
+    private final AtomicBoolean stop;      // Shared flag to stop the search, null when running alone
+    private long expandedNodes = 0;        // Counters of this engine, merged into the problem
+    private long createdNodes = 0;         // when a search ends
+    private long closurePruned = 0;
+    private long prunedBranches = 0;
+    private SearchTelemetry.Probe probe;   // Telemetry counters of the searching thread, null when off
+    long totalExpanded = 0;                // Nodes expanded by this engine over all its searches
+    Long seed;                             // Seed of the random tie-breaks between equal keys, null to keep the order
+    SearchCheckpoint checkpoint;           // Snapshots of a search from the root, null when off
+    TourListener listener;                 // Receives every tour and keeps the search going, null to stop at the first
+    long tours = 0;                        // Tours found when a listener is set
+    long backtrackLimit = 0;               // Backtracks allowed before the search gives up, 0 for no limit
+    long backtracks = 0;                   // Backtracks of the last search
+    boolean cutOff;                        // Whether the last search gave up at its backtrack limit
+    boolean quiet;                         // Leave the timeout warning to the group of searches this one is part of
+
+    // Receiver of the tours of an enumerating search, the path is only valid during the call
+    interface TourListener {
+        void tourFound(int[] path, int length);
+    }
+
+    int[] path;         // Square occupied at each depth (the move stack)
+    int pathLength;     // Number of squares in the path when a solution is found
+    boolean timedOut;   // Whether the search stopped because of the time limit
+    boolean stopped;    // Whether the search stopped because the shared stop flag was set
+
+    // Constructor to initialize the search with a problem instance and a move ordering strategy
+    public BacktrackingSearch(Problem problem, TreeSearch.Strategy strategy) {
+        this(problem, strategy, null);
+    }
+
+    // Constructor for a search that also stops when a shared flag is set by another thread
+    public BacktrackingSearch(Problem problem, TreeSearch.Strategy strategy, AtomicBoolean stop) {
+        this(problem, strategy, stop, BoardTopology.of(problem));
+    }
+
+    // Constructor for a search that scans the moves in the order of a custom topology
+    public BacktrackingSearch(Problem problem, TreeSearch.Strategy strategy, AtomicBoolean stop, BoardTopology topology) {
+        this.problem = problem;
+        this.strategy = strategy;
+        this.stop = stop;
+        this.topology = topology;
+        this.scorer = MoveScorer.of(strategy);
+        int squares = topology.squares;
+        this.visited = new boolean[squares];
+        this.degree = topology.newDegrees();
+        this.path = new int[squares];
+        this.moves = new int[squares * 8];
+        this.moveCount = new int[squares];
+        this.cursor = new int[squares];
+        this.closed = problem.closedTour;
+        this.returnSquare = new boolean[squares];
+        this.pruneDeadEnds = problem.pruneDeadEnds;
+        this.connectivityInterval = problem.connectivityInterval;
+        if (connectivityInterval > 0) {
+            this.queue = new int[squares];
+            this.seen = new int[squares];
+        }
+    }
+
+    // Method to run the search from the start square, returns true if a tour was found
+    public boolean search() {
+        return search(new int[]{topology.square(problem.startX, problem.startY)}, 1);
+    }
+
+    // Method to search the subtree below a path prefix, returns true if a tour was found
+    public boolean search(int[] prefix, int length) {
+        int goalDepth = topology.tourLength - 1;
+        Deadline deadline = problem.deadline();
+        int baseDepth = length - 1;
+        int depth = baseDepth;
+        probe = problem.telemetry != null ? problem.telemetry.probe(topology.squares) : null;
+
+        long searchStart = System.currentTimeMillis();
+        SearchCheckpoint.State state = checkpoint != null && length == 1 ? checkpoint.load(prefix[0]) : null;
+
+        try {
+            int resumed = state != null ? restore(state) : -1;
+            if (resumed >= 0) {
+                // Continue from the snapshot of an earlier run
+                depth = resumed;
+            } else {
+                // Place the knight on the last square of the prefix
+                load(prefix, length);
+                expandedNodes++;
+                if (probe != null) {
+                    probe.expanded(depth, depth + 1);
+                }
+                if (depth == goalDepth) {
+                    pathLength = depth + 1;
+                    if (listener != null && (!closed || returnSquare[path[depth]])) {
+                        tours++;
+                        listener.tourFound(path, pathLength);
+                        return false;
+                    }
+                    return !closed || returnSquare[path[depth]];
+                }
+                generateMoves(depth);
+            }
+
+            while (depth >= baseDepth) {
+                if (cursor[depth] < moveCount[depth]) {
+                    // Check for timeout and for a stop requested by another thread
+                    if (deadline.expired()) {
+                        if (!quiet) {
+                            logger.warning(deadline.message());
+                        }
+                        if (checkpoint != null && baseDepth == 0) {
+                            saveCheckpoint(depth, System.currentTimeMillis() - searchStart, true);
+                        }
+                        timedOut = true;
+                        return false;
+                    }
+                    if (checkpoint != null && baseDepth == 0 && checkpoint.due()) {
+                        saveCheckpoint(depth, System.currentTimeMillis() - searchStart, false);
+                    }
+                    if (stop != null && stop.get()) {
+                        stopped = true;
+                        return false;
+                    }
+
+                    // Make the next move
+                    int next = moves[depth * 8 + cursor[depth]++];
+                    depth++;
+                    path[depth] = next;
+                    visit(next);
+
+                    // Take the move back right away if the rest of the board can no longer be covered. Like the
+                    // node engine, a pruned move does not count as a created node.
+                    if (depth < goalDepth && isDoomed(depth)) {
+                        prunedBranches++;
+                        createdNodes--;
+                        release(next);
+                        depth--;
+                        continue;
+                    }
+                    expandedNodes++;
+                    if (probe != null) {
+                        probe.expanded(depth, depth + 1);
+                    }
+
+                    // Check if the new position completes the tour, an enumeration records it and backtracks
+                    if (depth == goalDepth) {
+                        pathLength = depth + 1;
+                        if (listener == null) {
+                            return true;
+                        }
+                        tours++;
+                        listener.tourFound(path, pathLength);
+                        release(path[depth]);
+                        depth--;
+                        continue;
+                    }
+                    generateMoves(depth);
+                } else {
+                    // Unmake the move when all candidates have been tried (dead-end)
+                    release(path[depth]);
+                    depth--;
+                    if (probe != null) {
+                        probe.backtracked();
+                    }
+                    // Give up once the backtrack budget of a restarted attempt is spent
+                    if (++backtracks == backtrackLimit) {
+                        cutOff = true;
+                        return false;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            mergeCounters();
+            if (probe != null) {
+                probe.idle();
+            }
+        }
+    }
+
+    // Method to get the ordered candidate moves after a path prefix without searching below them
+    int orderedMoves(int[] prefix, int length, int[] children) {
+        load(prefix, length);
+        expandedNodes++;
+        generateMoves(length - 1);
+        System.arraycopy(moves, (length - 1) * 8, children, 0, moveCount[length - 1]);
+        mergeCounters();
+        return moveCount[length - 1];
+    }
+
+    // Method to reset the board and replay a path prefix onto it
+    private void load(int[] prefix, int length) {
+        Arrays.fill(visited, false);
+        topology.resetDegrees(degree);
+        Arrays.fill(returnSquare, false);
+        for (int i = topology.offsets[prefix[0]]; i < topology.offsets[prefix[0] + 1]; i++) {
+            returnSquare[topology.neighbors[i]] = true;
+        }
+        for (int i = 0; i < length; i++) {
+            path[i] = prefix[i];
+            visit(prefix[i]);
+        }
+        timedOut = false;
+        stopped = false;
+        cutOff = false;
+        backtracks = 0;
+    }
+
+    // Method to rebuild the board, the candidate moves and the cursors of a checkpoint, returns its depth
+    // or -1 if it does not match this search. The candidates are generated again from the board, so the
+    // move made at every depth is checked against the saved path.
+    private int restore(SearchCheckpoint.State state) {
+        load(state.path, 1);
+        for (int depth = 0; depth <= state.depth; depth++) {
+            generateMoves(depth);
+            cursor[depth] = state.cursor[depth];
+            if (cursor[depth] > moveCount[depth]
+                    || depth < state.depth && (cursor[depth] == 0 || moves[depth * 8 + cursor[depth] - 1] != state.path[depth + 1])) {
+                logger.warning("Checkpoint does not match the search at depth " + depth + ", starting over.");
+                createdNodes = 0;
+                closurePruned = 0;
+                return -1;
+            }
+            if (depth < state.depth) {
+                path[depth + 1] = state.path[depth + 1];
+                visit(path[depth + 1]);
+            }
+        }
+        // The counters continue from the snapshot instead of counting the replay
+        expandedNodes = state.expandedNodes;
+        createdNodes = state.createdNodes;
+        closurePruned = state.closurePruned;
+        prunedBranches = state.prunedBranches;
+        logger.info(String.format("Resumed from the checkpoint at depth %d after %,d nodes expanded in %.1f s",
+                state.depth, state.expandedNodes, state.elapsedMillis / 1000.0));
+        return state.depth;
+    }
+
+    // Method to snapshot the search at a depth together with the counters so far
+    private void saveCheckpoint(int depth, long searchMillis, boolean wait) {
+        checkpoint.save(path, cursor, depth, new long[]{expandedNodes, createdNodes, closurePruned, prunedBranches},
+                searchMillis, wait);
+    }
+
+    // Method to add the counters of this engine to the problem statistics
+    private void mergeCounters() {
+        totalExpanded += expandedNodes;
+        synchronized (problem) {
+            problem.expandedNodes += expandedNodes;
+            problem.createdNodes += createdNodes;
+            problem.closurePruned += closurePruned;
+            problem.prunedBranches += prunedBranches;
+        }
+        expandedNodes = 0;
+        createdNodes = 0;
+        closurePruned = 0;
+        prunedBranches = 0;
+    }
+
+    // Method to mark a square visited on the board
+    private void visit(int square) {
+        visited[square] = true;
+        topology.visit(degree, square);
+    }
+
+    // Method to release a visited square from the board
+    private void release(int square) {
+        visited[square] = false;
+        topology.release(degree, square);
+    }
+
+    // Method to check if the position after the move to the given depth can no longer become a tour
+    private boolean isDoomed(int depth) {
+        if (pruneDeadEnds && hasDeadEnd(path[depth - 1], path[depth])) {
+            return true;
+        }
+        return connectivityInterval > 0 && depth % connectivityInterval == 0 && !isConnected(depth);
+    }
+
+    // Method to check for unvisited squares that can no longer be entered and left. A square whose only
+    // way in or out is left can only be the last square of the tour, so two of them are a dead-end too.
+    // Only the neighbors of the previous and the new square changed, so only they are checked.
+    private boolean hasDeadEnd(int from, int head) {
+        int forcedEnds = 0;
+        for (int i = topology.offsets[head]; i < topology.offsets[head + 1]; i++) {
+            int square = topology.neighbors[i];
+            // The new square is still a way into its neighbors
+            if (!visited[square] && degree[square] == 0 && ++forcedEnds > 1) {
+                return true;
+            }
+        }
+        for (int i = topology.offsets[from]; i < topology.offsets[from + 1]; i++) {
+            int square = topology.neighbors[i];
+            if (!visited[square]) {
+                if (degree[square] == 0) {
+                    return true;
+                }
+                if (degree[square] == 1 && ++forcedEnds > 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Method to check if every unvisited square can still be reached from the square at the given depth
+    private boolean isConnected(int depth) {
+        int remaining = topology.tourLength - 1 - depth;
+        int head = path[depth];
+        mark++;
+        int tail = 0;
+        int reached = 0;
+        queue[tail++] = head;
+        seen[head] = mark;
+        for (int index = 0; index < tail; index++) {
+            int square = queue[index];
+            for (int i = topology.offsets[square]; i < topology.offsets[square + 1]; i++) {
+                int next = topology.neighbors[i];
+                if (!visited[next] && seen[next] != mark) {
+                    seen[next] = mark;
+                    queue[tail++] = next;
+                    reached++;
+                }
+            }
+        }
+        return reached == remaining;
+    }
+
+    // Method to generate the ordered candidate moves for the square at the given depth
+    private void generateMoves(int depth) {
+        int[] neighbors = topology.neighbors;
+        int from = path[depth];
+        int base = depth * 8;
+        int count = 0;
+        boolean last = depth + 1 == topology.tourLength - 1;
+
+        // Neighbors are scanned in reverse so that candidates come out in the order
+        // TreeSearch polls them from the end of its frontier
+        for (int i = topology.offsets[from + 1] - 1; i >= topology.offsets[from]; i--) {
+            int next = neighbors[i];
+            if (!visited[next]) {
+                // A closed tour needs an unvisited neighbor of the start square until the last move,
+                // and the last move has to land on one
+                if (closed && (last ? !returnSquare[next] : returnSquare[next] && degree[path[0]] == 1)) {
+                    closurePruned++;
+                    continue;
+                }
+                moves[base + count] = next;
+                keys[count] = scorer != null ? scorer.score(topology, this, next) : 0;
+                count++;
+            }
+        }
+
+        // Shuffle the candidates so that the stable sort breaks ties randomly. The shuffle only depends on
+        // the seed, the depth and the square, so a resumed checkpoint generates the same move order again.
+        if (seed != null) {
+            long state = seed * GOLDEN_GAMMA ^ ((long) depth << 32 | from);
+            for (int i = count - 1; i > 0; i--) {
+                state += GOLDEN_GAMMA;
+                int j = (int) Long.remainderUnsigned(mix(state), i + 1);
+                int move = moves[base + i];
+                int key = keys[i];
+                moves[base + i] = moves[base + j];
+                keys[i] = keys[j];
+                moves[base + j] = move;
+                keys[j] = key;
+            }
+        }
+
+        // Stable insertion sort of at most 8 candidates by ascending key
+        for (int i = 1; i < count; i++) {
+            int move = moves[base + i];
+            int key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                moves[base + j + 1] = moves[base + j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            moves[base + j + 1] = move;
+            keys[j + 1] = key;
+        }
+
+        moveCount[depth] = count;
+        cursor[depth] = 0;
+        createdNodes += count;
+    }
+
+    // Method to scramble the bits of a shuffle state, the finalizer of SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Methods to expose the board to the move scorers. The remaining degree of an unvisited square is
+    // exactly its number of possible moves; for closed tours the start square still counts as a move
+    // of its neighbors, so that the heuristics do not use up the squares the tour has to return through.
+    @Override
+    public int exits(int square) {
+        return closed && returnSquare[square] ? degree[square] + 1 : degree[square];
+    }
+
+    @Override
+    public boolean isVisited(int square) {
+        return visited[square];
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+// Non-interactive mode that solves a list of jobs in one JVM, optionally several at a time.
+// A job is "size strategy timeLimit [startX startY]", separated by spaces or commas, where the
+// strategy is its menu number or its name. Every job writes its tour to its own file in the output
+// directory and one CSV record with its outcome to the results file.
+public class BatchRunner {
+    private static final String HEADER = "job,size,start_x,start_y,strategy,status,nodes_created,nodes_expanded,elapsed_ms,path";
+
+    Logger logger = Logger.getLogger(BatchRunner.class.getName());
+
+    private final Problem options;      // Engine options shared by every job
+    private final int workers;
+    private final Path resultsFile;
+    private final Path outputDirectory;
+    private final Set<Problem> running = ConcurrentHashMap.newKeySet();    // Jobs being solved, stopped by cancel
+    private volatile boolean cancelled = false;
+
+    // A single instance to solve
+    static class Job {
+        final int index;
+        final int size;
+        final TreeSearch.Strategy strategy;
+        final int timeLimit;
+        final int startX;
+        final int startY;
+
+        Job(int index, int size, TreeSearch.Strategy strategy, int timeLimit, int startX, int startY) {
+            this.index = index;
+            this.size = size;
+            this.strategy = strategy;
+            this.timeLimit = timeLimit;
+            this.startX = startX;
+            this.startY = startY;
+        }
+    }
+
+    // Constructor to initialize the runner with the engine options and the output locations
+    public BatchRunner(Problem options, int workers, String resultsFile, String outputDirectory) {
+        this.options = options;
+        this.workers = Math.max(1, workers);
+        this.resultsFile = Paths.get(resultsFile);
+        this.outputDirectory = Paths.get(outputDirectory);
+    }
+
+    // Method to parse job lines, blank lines and lines starting with # are skipped
+    static List<Job> parseJobs(List<String> lines) {
+        List<Job> jobs = new ArrayList<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split("[\\s,]+");
+            if (fields.length != 3 && fields.length != 5) {
+                throw new IllegalArgumentException("expected size, strategy, time limit and an optional start square: " + line);
+            }
+            try {
+                int size = Integer.parseInt(fields[0]);
+                TreeSearch.Strategy strategy = parseStrategy(fields[1]);
+                int timeLimit = Integer.parseInt(fields[2]);
+                int startX = fields.length == 5 ? Integer.parseInt(fields[3]) : 1;
+                int startY = fields.length == 5 ? Integer.parseInt(fields[4]) : 1;
+                if (size <= 0 || timeLimit <= 0 || startX < 1 || startX > size || startY < 1 || startY > size) {
+                    throw new IllegalArgumentException("values out of range: " + line);
+                }
+                jobs.add(new Job(jobs.size() + 1, size, strategy, timeLimit, startX, startY));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a number in: " + line);
+            }
+        }
+        return jobs;
+    }
+
+    // Method to parse a strategy given as its menu number or its name
+    static TreeSearch.Strategy parseStrategy(String field) {
+        if (field.chars().allMatch(Character::isDigit)) {
+            TreeSearch.Strategy strategy = Main.strategyOf(Integer.parseInt(field));
+            if (strategy == null) {
+                throw new IllegalArgumentException("unknown strategy number " + field);
+            }
+            return strategy;
+        }
+        return TreeSearch.Strategy.valueOf(field.toUpperCase(Locale.ROOT));
+    }
+
+    // Method to solve the jobs on the worker pool, records are written as the jobs finish
+    public void run(List<Job> jobs) {
+        logger.info("Batch: " + jobs.size() + " jobs on " + workers + " workers, results in " + resultsFile);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            Files.createDirectories(outputDirectory);
+            try (BufferedWriter writer = Files.newBufferedWriter(resultsFile)) {
+                writer.write(HEADER);
+                writer.newLine();
+                writer.flush();
+
+                List<Future<?>> futures = new ArrayList<>();
+                for (Job job : jobs) {
+                    futures.add(executor.submit(() -> record(writer, solve(job))));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to write the batch results." + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warning("Batch job failed." + e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Method to stop the running jobs and skip the remaining ones, each of them still gets its record
+    public void cancel() {
+        cancelled = true;
+        for (Problem problem : running) {
+            problem.deadline().cancel();
+        }
+    }
+
+    // Method to solve a single job and describe its outcome as a CSV record
+    private String solve(Job job) {
+        Problem problem = options.copyOptions();
+        problem.size = job.size;
+        problem.timeLimit = job.timeLimit;
+        problem.startX = job.startX;
+        problem.startY = job.startY;
+        problem.pathFile = outputDirectory.resolve("job-" + job.index + ".bin").toString();
+
+        String status;
+        long start = System.nanoTime();
+        problem.startTime = System.currentTimeMillis();
+        running.add(problem);
+        try {
+            if (cancelled) {
+                problem.deadline().cancel();
+            }
+            TreeSearch search = new TreeSearch(problem);
+            boolean found = !cancelled && search.solve(problem, job.strategy);
+            status = found ? "found" : problem.deadline().cancelled() ? "cancelled" : search.timedOut ? "timeout" : "no solution";
+        } catch (OutOfMemoryError e) {
+            status = "out of memory";
+        } catch (RuntimeException e) {
+            logger.warning("Job " + job.index + " failed: " + e);
+            status = "error";
+        } finally {
+            running.remove(problem);
+            problem.deadline().close();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info("Job " + job.index + " (" + job.size + "x" + job.size + ", " + job.strategy + "): " + status
+                + " in " + elapsedMillis + " ms, " + String.format("%,d", problem.expandedNodes) + " nodes expanded");
+        return job.index + "," + job.size + "," + job.startX + "," + job.startY + "," + job.strategy + "," + status + ","
+                + problem.createdNodes + "," + problem.expandedNodes + "," + elapsedMillis + ","
+                + (status.equals("found") ? problem.pathFile : "");
+    }
+
+    // Method to append a record to the results file, records of concurrent jobs must not interleave
+    private void record(BufferedWriter writer, String line) {
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                logger.warning("Failed to write the batch results." + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+// The eight symmetries of a square board: four rotations and four reflections.
+// Every symmetry maps knight moves to knight moves, so it maps a tour to another tour.
+// Squares are indexed as (x - 1) * size + (y - 1), like in BoardTopology.
+public class BoardSymmetry {
+    static final int COUNT = 8;
+    private static final String[] NAMES = {"identity", "rotate 90", "rotate 180", "rotate 270",
+            "mirror x", "mirror y", "transpose", "anti-transpose"};
+    private static final int[] INVERSES = {0, 3, 2, 1, 4, 5, 6, 7};
+
+    private final int size;
+
+    // Constructor to initialize the symmetries of a board size
+    public BoardSymmetry(int size) {
+        this.size = size;
+    }
+
+    // Method to map a square by one of the symmetries
+    int apply(int symmetry, int square) {
+        int x = square / size;
+        int y = square % size;
+        int last = size - 1;
+        return switch (symmetry) {
+            case 0 -> square;
+            case 1 -> y * size + (last - x);
+            case 2 -> (last - x) * size + (last - y);
+            case 3 -> (last - y) * size + x;
+            case 4 -> (last - x) * size + y;
+            case 5 -> x * size + (last - y);
+            case 6 -> y * size + x;
+            case 7 -> (last - y) * size + (last - x);
+            default -> throw new IllegalArgumentException("Unknown symmetry " + symmetry);
+        };
+    }
+
+    // Method to get the symmetry that undoes another one
+    static int inverse(int symmetry) {
+        return INVERSES[symmetry];
+    }
+
+    // Method to describe a symmetry
+    static String name(int symmetry) {
+        return NAMES[symmetry];
+    }
+
+    // Method to get the representative of the orbit of a square, the smallest square it maps to
+    int canonical(int square) {
+        int smallest = square;
+        for (int symmetry = 1; symmetry < COUNT; symmetry++) {
+            smallest = Math.min(smallest, apply(symmetry, square));
+        }
+        return smallest;
+    }
+
+    // Method to find a symmetry that maps the representative of the orbit of a square onto the square
+    int fromCanonical(int square) {
+        int canonical = canonical(square);
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            if (apply(symmetry, canonical) == square) {
+                return symmetry;
+            }
+        }
+        throw new IllegalStateException("Square " + square + " is not in the orbit of " + canonical);
+    }
+
+    // Method to map every square of a path by a symmetry into a new array
+    int[] apply(int symmetry, int[] path, int length) {
+        int[] mapped = new int[length];
+        for (int i = 0; i < length; i++) {
+            mapped[i] = apply(symmetry, path[i]);
+        }
+        return mapped;
+    }
+}
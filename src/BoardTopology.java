@@ -0,0 +1,157 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Knight move topology of a board, shared by every search of the same board shape while that shape is
+// among the most recently used ones.
+// A board is a rectangle of rows x columns squares, optionally with holes that are not part of it.
+// Squares are indexed as (x - 1) * columns + (y - 1), the same layout TreeSearch uses for its BitSet.
+// The neighbor lists only hold playable squares, so the engines never test bounds or holes, and
+// a hole is simply a square no tour can reach.
+public class BoardTopology {
+    private static final int CACHED_SHAPES = 16;   // Board shapes kept, the least recently used one is dropped
+    private static final Map<String, BoardTopology> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BoardTopology> eldest) {
+            return size() > CACHED_SHAPES;
+        }
+    };
+
+    final int rows;         // Range of x
+    final int columns;      // Range of y
+    final int squares;      // Size of the square index space, rows * columns
+    final int tourLength;   // Playable squares, the number of squares of a tour
+    final BitSet holes;     // Squares that are not part of the board, empty for a full rectangle
+    final int[] offsets;    // Neighbors of square s are neighbors[offsets[s]] .. neighbors[offsets[s + 1] - 1]
+    final int[] neighbors;  // Legal target squares of every square, in the order of the move directions
+    final int[] cornerDistance;     // Manhattan distance from every square to the nearest corner of the rectangle
+    private final byte[] degrees;   // Number of legal target squares of every square on an empty board
+
+    // Constructor to build the neighbor table for a square board with the moves in the given order
+    BoardTopology(int size, int[][] directions) {
+        this(size, size, new BitSet(), directions);
+    }
+
+    // Constructor to build the neighbor table for a board shape with the moves in the given order
+    BoardTopology(int rows, int columns, BitSet holes, int[][] directions) {
+        this.rows = rows;
+        this.columns = columns;
+        this.squares = rows * columns;
+        this.holes = holes;
+        this.tourLength = squares - holes.cardinality();
+        this.offsets = new int[squares + 1];
+        this.degrees = new byte[squares];
+        this.cornerDistance = new int[squares];
+
+        int[] table = new int[squares * 8];
+        int count = 0;
+        for (int square = 0; square < squares; square++) {
+            offsets[square] = count;
+            int x = square / columns;
+            int y = square % columns;
+            cornerDistance[square] = Math.min(x, rows - 1 - x) + Math.min(y, columns - 1 - y);
+            if (holes.get(square)) {
+                continue;
+            }
+            for (int[] direction : directions) {
+                int nx = x + direction[0];
+                int ny = y + direction[1];
+                if (nx >= 0 && nx < rows && ny >= 0 && ny < columns && !holes.get(nx * columns + ny)) {
+                    table[count++] = nx * columns + ny;
+                }
+            }
+            degrees[square] = (byte) (count - offsets[square]);
+        }
+        offsets[squares] = count;
+        this.neighbors = Arrays.copyOf(table, count);
+    }
+
+    // Method to get the shared topology of a square board size
+    public static BoardTopology of(int size) {
+        return cached(size + "x" + size, () -> new BoardTopology(size, TreeSearch.directions));
+    }
+
+    // Method to get the shared topology of the board of a problem
+    public static BoardTopology of(Problem problem) {
+        if (problem.holes == null || problem.holes.isEmpty()) {
+            if (problem.columns() == problem.size) {
+                return of(problem.size);
+            }
+            return cached(problem.size + "x" + problem.columns(),
+                    () -> new BoardTopology(problem.size, problem.columns(), new BitSet(), TreeSearch.directions));
+        }
+        BitSet holes = (BitSet) problem.holes.clone();
+        return cached(problem.size + "x" + problem.columns() + " " + holes,
+                () -> new BoardTopology(problem.size, problem.columns(), holes, TreeSearch.directions));
+    }
+
+    // Method to get a topology from the cache, building it outside the lock when it is missing. Two searches
+    // that miss the same shape at once may both build it, the first one stored is shared from then on.
+    private static BoardTopology cached(String key, Supplier<BoardTopology> builder) {
+        synchronized (cache) {
+            BoardTopology topology = cache.get(key);
+            if (topology != null) {
+                return topology;
+            }
+        }
+        BoardTopology built = builder.get();
+        synchronized (cache) {
+            BoardTopology topology = cache.putIfAbsent(key, built);
+            return topology != null ? topology : built;
+        }
+    }
+
+    // Method to build a topology of the same board that scans the moves in another order
+    BoardTopology withDirections(int[][] directions) {
+        return new BoardTopology(rows, columns, holes, directions);
+    }
+
+    // Method to check if a square is part of the board
+    boolean isPlayable(int square) {
+        return square >= 0 && square < squares && !holes.get(square);
+    }
+
+    // Method to check if the board is a full square, the shape the symmetries and the cache assume
+    boolean isSquare() {
+        return rows == columns && holes.isEmpty();
+    }
+
+    // Method to create a fresh remaining degree array for an empty board
+    byte[] newDegrees() {
+        return degrees.clone();
+    }
+
+    // Method to restore a remaining degree array to the empty board
+    void resetDegrees(byte[] degree) {
+        System.arraycopy(degrees, 0, degree, 0, squares);
+    }
+
+    // Method to mark a square visited and update the remaining degree of its neighbors
+    void visit(byte[] degree, int square) {
+        for (int i = offsets[square]; i < offsets[square + 1]; i++) {
+            degree[neighbors[i]]--;
+        }
+    }
+
+    // Method to release a visited square and restore the remaining degree of its neighbors
+    void release(byte[] degree, int square) {
+        for (int i = offsets[square]; i < offsets[square + 1]; i++) {
+            degree[neighbors[i]]++;
+        }
+    }
+
+    // Methods to convert between 1-based coordinates and square indices
+    int square(int x, int y) {
+        return (x - 1) * columns + (y - 1);
+    }
+
+    int x(int square) {
+        return square / columns + 1;
+    }
+
+    int y(int square) {
+        return square % columns + 1;
+    }
+}
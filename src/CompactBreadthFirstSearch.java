@@ -0,0 +1,159 @@
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+// Breadth-first search whose frontier is stored as packed primitive records instead of Node objects.
+// Every record is a visited bitmap in a long[] slab plus the current square and the parent index in
+// int[] slabs. The frontier is the contiguous record range [head, tail); once the head has moved past
+// a slab its bitmaps are dropped, so expanded nodes only keep their square and parent for printPath.
+public class CompactBreadthFirstSearch {
+    private static final int SLAB_BITS = 16;
+    private static final int SLAB_SIZE = 1 << SLAB_BITS;    // Records per slab
+    private static final int SLAB_MASK = SLAB_SIZE - 1;
+
+    Logger logger = Logger.getLogger(CompactBreadthFirstSearch.class.getName());
+    Problem problem;
+
+    private final BoardTopology topology;
+    private final int words;                    // Bitmap words per record
+    private long[][] states = new long[16][];   // Visited bitmaps, words per record
+    private int[][] squares = new int[16][];    // Current square of every record
+    private int[][] parents = new int[16][];    // Parent record index of every record
+    private int head;                           // First record of the frontier
+    private int tail;                           // Number of records stored
+
+    private int peakFrontier;   // Largest number of records held in the frontier
+    private long peakBytes;     // Largest number of slab bytes held at once
+    private long liveBytes;     // Slab bytes currently held
+
+    int[] path;         // Square indices of the tour when a solution is found
+    int pathLength;     // Number of squares in the path when a solution is found
+    boolean timedOut;   // Whether the search stopped because of the time limit
+
+    // Constructor to initialize the search with a problem instance
+    public CompactBreadthFirstSearch(Problem problem) {
+        this.problem = problem;
+        this.topology = BoardTopology.of(problem);
+        this.words = (topology.squares + 63) >>> 6;
+    }
+
+    // Method to run the search, returns true if a tour was found
+    public boolean search() {
+        int goalDepth = topology.tourLength - 1;
+        Deadline deadline = problem.deadline();
+        long[] current = new long[words];
+
+        // Add the root record
+        int start = topology.square(problem.startX, problem.startY);
+        current[start >>> 6] |= 1L << start;
+        add(current, start, -1);
+
+        int depth = 0;
+        int layerEnd = tail;
+        SearchTelemetry.Probe probe = problem.telemetry != null ? problem.telemetry.probe(topology.squares) : null;
+        try {
+            while (head < tail) {
+                // Check for timeout
+                if (deadline.expired()) {
+                    logger.warning(deadline.message());
+                    timedOut = true;
+                    return false;
+                }
+                // Move to the next layer when the current one is exhausted
+                if (head == layerEnd) {
+                    depth++;
+                    layerEnd = tail;
+                }
+
+                int node = head++;
+                problem.expandedNodes++;
+                if (probe != null) {
+                    probe.expanded(depth, tail - head);
+                }
+                if (depth == goalDepth) {
+                    reconstructPath(node, depth);
+                    return true;
+                }
+
+                // Expand the record, each child is the parent bitmap plus the target square
+                System.arraycopy(states[node >>> SLAB_BITS], (node & SLAB_MASK) * words, current, 0, words);
+                int from = squares[node >>> SLAB_BITS][node & SLAB_MASK];
+                int added = tail;
+                for (int i = topology.offsets[from]; i < topology.offsets[from + 1]; i++) {
+                    int square = topology.neighbors[i];
+                    if ((current[square >>> 6] & (1L << square)) == 0) {
+                        current[square >>> 6] |= 1L << square;
+                        add(current, square, node);
+                        current[square >>> 6] &= ~(1L << square);
+                        problem.createdNodes++;
+                    }
+                }
+                if (probe != null && tail == added) {
+                    probe.backtracked();
+                }
+
+                // Drop the bitmaps of a slab once every record in it has been expanded
+                if ((head & SLAB_MASK) == 0) {
+                    states[(head - 1) >>> SLAB_BITS] = null;
+                    liveBytes -= (long) SLAB_SIZE * words * Long.BYTES;
+                }
+            }
+            logger.info("No solution exists.");
+            return false;
+        } finally {
+            logStatistics();
+            if (probe != null) {
+                probe.idle();
+            }
+        }
+    }
+
+    // Method to append a record to the end of the frontier
+    private void add(long[] state, int square, int parent) {
+        if (tail == Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Compact frontier index space exhausted");
+        }
+        int slab = tail >>> SLAB_BITS;
+        int offset = tail & SLAB_MASK;
+        if (offset == 0) {
+            allocateSlab(slab);
+        }
+        System.arraycopy(state, 0, states[slab], offset * words, words);
+        squares[slab][offset] = square;
+        parents[slab][offset] = parent;
+        tail++;
+        peakFrontier = Math.max(peakFrontier, tail - head);
+    }
+
+    // Method to allocate the slabs for the next block of records
+    private void allocateSlab(int slab) {
+        if (slab == states.length) {
+            states = Arrays.copyOf(states, slab * 2);
+            squares = Arrays.copyOf(squares, slab * 2);
+            parents = Arrays.copyOf(parents, slab * 2);
+        }
+        states[slab] = new long[SLAB_SIZE * words];
+        squares[slab] = new int[SLAB_SIZE];
+        parents[slab] = new int[SLAB_SIZE];
+        liveBytes += (long) SLAB_SIZE * (words * Long.BYTES + 2 * Integer.BYTES);
+        peakBytes = Math.max(peakBytes, liveBytes);
+    }
+
+    // Method to rebuild the path by following the parent indices from the goal record
+    private void reconstructPath(int node, int depth) {
+        path = new int[depth + 1];
+        pathLength = depth + 1;
+        for (int i = depth; i >= 0; i--) {
+            path[i] = squares[node >>> SLAB_BITS][node & SLAB_MASK];
+            node = parents[node >>> SLAB_BITS][node & SLAB_MASK];
+        }
+    }
+
+    // Method to log the memory footprint achieved by the packed encoding
+    private void logStatistics() {
+        int frontierBytes = words * Long.BYTES + 2 * Integer.BYTES;
+        logger.info("Compact frontier: " + String.format("%,d", tail) + " records stored, peak frontier "
+                + String.format("%,d", peakFrontier) + " records, " + frontierBytes + " bytes per frontier node, "
+                + (2 * Integer.BYTES) + " bytes per expanded node, peak slab memory "
+                + String.format("%,d", peakBytes / (1024 * 1024)) + " MB");
+    }
+}
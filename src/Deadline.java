@@ -0,0 +1,65 @@
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// End of the time a search may run, shared by every engine working on the same problem.
+// A timer thread flips a volatile flag when the time limit is reached, so the search loops only read
+// a field per node instead of calling the clock. The flag is also set by cancel, which lets another
+// thread, a batch runner or the shutdown hook stop a search early; the engines stop the same way as on
+// a timeout and still merge their node counters into the problem.
+public class Deadline {
+    private static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "deadline-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private final String timeLimit;             // Time limit with its unit, for the messages
+    private final ScheduledFuture<?> expiry;
+    private volatile boolean expired = false;
+    private volatile boolean cancelled = false;
+
+    // Constructor to start the countdown of a time limit in minutes from a start time in milliseconds
+    public Deadline(long startTime, int timeLimit) {
+        this(startTime, timeLimit * 60 * 1000L, timeLimit + " minutes");
+    }
+
+    // Constructor to start the countdown of a time limit in milliseconds from a start time in milliseconds
+    public Deadline(long startTime, long limitMillis, String timeLimit) {
+        this.timeLimit = timeLimit;
+        long delay = startTime + limitMillis - System.currentTimeMillis();
+        this.expiry = timer.schedule(() -> expired = true, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+    // Method to check if the search has to stop, cheap enough to call for every node
+    public boolean expired() {
+        return expired;
+    }
+
+    // Method to check if the search was stopped by cancel rather than by the time limit
+    public boolean cancelled() {
+        return cancelled;
+    }
+
+    // Method to stop every search using this deadline
+    public void cancel() {
+        cancelled = true;
+        expired = true;
+        expiry.cancel(false);
+    }
+
+    // Method to release the timer when the search has finished
+    public void close() {
+        expiry.cancel(false);
+    }
+
+    // Method to describe why the search stopped
+    public String message() {
+        return cancelled ? "Cancelled: Search stopped before it finished."
+                : "Timeout: Search exceeded the time limit of " + timeLimit + ".";
+    }
+}
@@ -0,0 +1,446 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.logging.Logger;
+
+// Linear-time tour construction for large boards by stitching open tours of small blocks.
+// The board is split into an even number of bands in both directions, each 6 to 12 squares wide,
+// and the blocks are chained along a Hamiltonian cycle of the block grid. Starting from the block of
+// the start square, every block is covered by an open tour that begins on the square reached from the
+// previous block and ends on a square with a knight move into the next block. A block tour depends only
+// on the block shape, entry square and exit side, so solved blocks are cached and reused, and every
+// block is streamed out as soon as the block after it has been solved.
+public class DivideAndConquerTour {
+    private static final int MIN_SPLIT_SIZE = 12;           // Smaller boards are solved as a single block
+    private static final long BLOCK_NODE_LIMIT = 20_000;    // Nodes per attempt of a block search
+    private static final int BLOCK_ATTEMPTS = 32;           // Attempts with different seeds for a block
+    private static final int[] DEGREE_WEIGHTS = {2, 3, 4, 64};  // Weight of the degree against the exit closeness
+
+    // Exit sides of a block, towards the next block in the chain
+    private static final int NONE = -1;
+    private static final int UP = 0;
+    private static final int DOWN = 1;
+    private static final int LEFT = 2;
+    private static final int RIGHT = 3;
+
+    Logger logger = Logger.getLogger(DivideAndConquerTour.class.getName());
+    Problem problem;
+
+    private final int size;
+    private final int[] bands;      // First row (and column) of every band, followed by the board size
+    private final int[] order;      // Blocks of the grid in cycle order, as band row * band count + band column
+    private final Map<String, int[]> cache = new HashMap<>();   // Block tours by shape, entry, exit side and seed
+    private long cacheHits = 0;
+    private long blocksSolved = 0;
+    private long failedAttempts = 0;
+
+    boolean timedOut;   // Whether the construction stopped because of the time limit
+    boolean impossible; // Whether the board has no tour from the start square, as opposed to the construction giving up
+
+    // Constructor to initialize the construction with a problem instance
+    public DivideAndConquerTour(Problem problem) {
+        this.problem = problem;
+        this.size = problem.size;
+        int[] parts = partition(size);
+        this.bands = new int[parts.length + 1];
+        for (int i = 0; i < parts.length; i++) {
+            bands[i + 1] = bands[i] + parts[i];
+        }
+        this.order = cycleOrder(parts.length);
+    }
+
+    // Method to split a board side into an even number of parts between 6 and 12 squares.
+    // For odd sides the single odd part comes first, so the only odd block is in the top-left corner
+    // where its majority color matches the majority color of the whole board.
+    static int[] partition(int n) {
+        boolean odd = n % 2 == 1;
+        if (n < MIN_SPLIT_SIZE + (odd ? 1 : 0)) {
+            return new int[]{n};
+        }
+        int count = 2;
+        while ((odd ? 11 + 12 * (count - 1) : 12 * count) < n) {
+            count += 2;
+        }
+        int[] parts = new int[count];
+        int remaining = n;
+        for (int i = 0; i < count; i++) {
+            parts[i] = (odd && i == 0) ? 7 : 6;
+            remaining -= parts[i];
+        }
+        // Grow the parts two squares at a time, from the last part backwards
+        for (int i = count - 1; remaining > 0; i = (i == 0 ? count - 1 : i - 1)) {
+            if (parts[i] + 2 <= (odd && i == 0 ? 11 : 12)) {
+                parts[i] += 2;
+                remaining -= 2;
+            }
+        }
+        return parts;
+    }
+
+    // Method to list the cells of an even sized grid along a Hamiltonian cycle:
+    // right along the first row, snaking through the other rows from the second column, then up the first column
+    static int[] cycleOrder(int count) {
+        if (count == 1) {
+            return new int[]{0};
+        }
+        List<Integer> cells = new ArrayList<>();
+        for (int column = 0; column < count; column++) {
+            cells.add(column);
+        }
+        for (int row = 1; row < count; row++) {
+            for (int i = 1; i < count; i++) {
+                int column = row % 2 == 1 ? count - i : i;
+                cells.add(row * count + column);
+            }
+        }
+        for (int row = count - 1; row >= 1; row--) {
+            cells.add(row * count);
+        }
+        return cells.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Method to build the tour and stream its square indices to the output, returns true on success
+    public boolean construct(IntConsumer output) {
+        int start = (problem.startX - 1) * size + (problem.startY - 1);
+        // On odd boards an open tour has to start and end on the majority color, the color of (1, 1)
+        if (size % 2 == 1 && (problem.startX + problem.startY) % 2 == 1) {
+            logger.info("No open tour starts on the minority color of an odd board.");
+            impossible = true;
+            return false;
+        }
+        int[] parts = partition(size);
+        logger.info("Divide and conquer: " + parts.length + "x" + parts.length + " blocks of "
+                + Arrays.stream(parts).min().getAsInt() + " to " + Arrays.stream(parts).max().getAsInt() + " squares");
+
+        int count = order.length;
+        int first = 0;
+        while (!containsSquare(order[first], start)) {
+            first++;
+        }
+        int[][] tours = new int[count][];   // Global squares of the solved blocks, in chain order
+        int[] entries = new int[count];     // Entry square of every block, in chain order
+        int[] seeds = new int[count];       // Next tie-break seed to try for every block
+        int emitted = 0;                    // Number of blocks already streamed out
+        entries[0] = start;
+
+        Deadline deadline = problem.deadline();
+        int k = 0;
+        while (k < count) {
+            // Check for timeout
+            if (deadline.expired()) {
+                logger.warning(deadline.message());
+                timedOut = true;
+                return false;
+            }
+            int cell = order[(first + k) % count];
+            int next = k + 1 < count ? order[(first + k + 1) % count] : -1;
+            int[] tour = null;
+            while (tour == null && seeds[k] < (count == 1 ? 1 : BLOCK_ATTEMPTS)) {
+                tour = solveBlock(cell, next, entries[k], seeds[k]);
+                if (tour == null) {
+                    seeds[k]++;
+                }
+            }
+
+            if (tour == null) {
+                // Backtrack into the previous block if it has not been streamed yet
+                if (k == emitted) {
+                    if (count > 1) {
+                        logger.warning("Divide and conquer construction failed at block " + k + ".");
+                    }
+                    // Boards below 5x5 have no open tour, larger single blocks only ran out of attempts
+                    impossible = size < 5;
+                    return false;
+                }
+                seeds[k] = 0;
+                k--;
+                seeds[k]++;
+                tours[k] = null;
+                continue;
+            }
+
+            // The previous block is final once this block has a tour
+            if (k > emitted) {
+                emit(tours[k - 1], output);
+                tours[k - 1] = null;
+                emitted++;
+            }
+            tours[k] = tour;
+            if (next >= 0) {
+                entries[k + 1] = entryOf(next, tour[tour.length - 1]);
+            }
+            k++;
+        }
+        emit(tours[count - 1], output);
+        logger.info("Divide and conquer: " + count + " blocks, " + blocksSolved + " block tours solved, "
+                + cacheHits + " reused from the cache, " + failedAttempts + " failed attempts");
+        return true;
+    }
+
+    // Method to stream the squares of a block tour
+    private void emit(int[] tour, IntConsumer output) {
+        for (int square : tour) {
+            output.accept(square);
+        }
+    }
+
+    // Method to check if a block contains a square
+    private boolean containsSquare(int cell, int square) {
+        int row = cell / (bands.length - 1);
+        int column = cell % (bands.length - 1);
+        int x = square / size;
+        int y = square % size;
+        return x >= bands[row] && x < bands[row + 1] && y >= bands[column] && y < bands[column + 1];
+    }
+
+    // Method to find the first square of the next block reachable from the exit square
+    private int entryOf(int cell, int exit) {
+        int x = exit / size;
+        int y = exit % size;
+        for (int[] direction : TreeSearch.directions) {
+            int nx = x + direction[0];
+            int ny = y + direction[1];
+            if (nx >= 0 && nx < size && ny >= 0 && ny < size && containsSquare(cell, nx * size + ny)) {
+                return nx * size + ny;
+            }
+        }
+        throw new IllegalStateException("Block exit has no move into the next block");
+    }
+
+    // Method to solve a block from its entry square, returns the global squares of its tour or null
+    private int[] solveBlock(int cell, int next, int entry, int seed) {
+        int count = bands.length - 1;
+        int row = cell / count;
+        int column = cell % count;
+        int top = bands[row];
+        int left = bands[column];
+        int rows = bands[row + 1] - top;
+        int columns = bands[column + 1] - left;
+
+        int side = NONE;
+        if (next >= 0) {
+            int nextRow = next / count;
+            int nextColumn = next % count;
+            side = nextRow < row ? UP : nextRow > row ? DOWN : nextColumn < column ? LEFT : RIGHT;
+        }
+
+        int local = (entry / size - top) * columns + (entry % size - left);
+        String key = rows + "x" + columns + ":" + local + ":" + side + ":" + seed;
+        int[] tour = cache.get(key);
+        if (tour != null) {
+            cacheHits++;
+        } else if (cache.containsKey(key)) {
+            return null;    // This attempt is already known to fail
+        } else {
+            long limit = count == 1 ? Long.MAX_VALUE : BLOCK_NODE_LIMIT;
+            tour = new BlockSearch(rows, columns, side, seed).search(local, limit);
+            cache.put(key, tour);
+            if (tour == null) {
+                failedAttempts++;
+                return null;
+            }
+            blocksSolved++;
+        }
+
+        // Translate the block tour to global squares
+        int[] global = new int[tour.length];
+        for (int i = 0; i < tour.length; i++) {
+            global[i] = (top + tour[i] / columns) * size + left + tour[i] % columns;
+        }
+        return global;
+    }
+
+    // Warnsdorff search with backtracking for an open tour of a single block that ends on its exit side
+    private class BlockSearch {
+        private final int rows;
+        private final int columns;
+        private final int squares;
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final boolean[] exits;      // Squares with a knight move into the next block
+        private final int[] closeness;      // How close every square is to the exit side
+        private final Random random;
+        private final int degreeWeight;
+
+        BlockSearch(int rows, int columns, int side, int seed) {
+            this.rows = rows;
+            this.columns = columns;
+            this.squares = rows * columns;
+            this.offsets = new int[squares + 1];
+            this.neighbors = new int[squares * 8];
+            this.exits = new boolean[squares];
+            this.closeness = new int[squares];
+            this.random = seed == 0 ? null : new Random(seed);
+            this.degreeWeight = DEGREE_WEIGHTS[seed % DEGREE_WEIGHTS.length];
+
+            int count = 0;
+            for (int square = 0; square < squares; square++) {
+                offsets[square] = count;
+                int x = square / columns;
+                int y = square % columns;
+                for (int[] direction : TreeSearch.directions) {
+                    int nx = x + direction[0];
+                    int ny = y + direction[1];
+                    boolean insideRows = nx >= 0 && nx < rows;
+                    boolean insideColumns = ny >= 0 && ny < columns;
+                    if (insideRows && insideColumns) {
+                        neighbors[count++] = nx * columns + ny;
+                    } else if (side == UP && nx < 0 && insideColumns || side == DOWN && nx >= rows && insideColumns
+                            || side == LEFT && ny < 0 && insideRows || side == RIGHT && ny >= columns && insideRows) {
+                        exits[square] = true;
+                    }
+                }
+                switch (side) {
+                    case UP -> closeness[square] = rows - x;
+                    case DOWN -> closeness[square] = x + 1;
+                    case LEFT -> closeness[square] = columns - y;
+                    case RIGHT -> closeness[square] = y + 1;
+                    default -> exits[square] = true;
+                }
+            }
+            offsets[squares] = count;
+        }
+
+        // Method to search for the block tour, returns the local squares of the tour or null
+        int[] search(int entry, long limit) {
+            boolean[] visited = new boolean[squares];
+            byte[] degree = new byte[squares];
+            int[] path = new int[squares];
+            int[] moves = new int[squares * 8];
+            int[] moveCount = new int[squares];
+            int[] cursor = new int[squares];
+            int[] keys = new int[8];
+            for (int square = 0; square < squares; square++) {
+                degree[square] = (byte) (offsets[square + 1] - offsets[square]);
+            }
+
+            int exitsLeft = 0;
+            for (boolean exit : exits) {
+                exitsLeft += exit ? 1 : 0;
+            }
+            int depth = 0;
+            long nodes = 0;
+            path[0] = entry;
+            visited[entry] = true;
+            exitsLeft -= exits[entry] ? 1 : 0;
+            for (int i = offsets[entry]; i < offsets[entry + 1]; i++) {
+                degree[neighbors[i]]--;
+            }
+
+            while (true) {
+                int from = path[depth];
+                if (depth == squares - 1) {
+                    if (exits[from]) {
+                        problem.expandedNodes += nodes;
+                        return path;
+                    }
+                    moveCount[depth] = 0;
+                } else if (exitsLeft == 0 || isDeadEnd(depth, path, visited, degree) || nodes >= limit) {
+                    // No exit square is left for the last move, or an unvisited square can no longer be reached
+                    moveCount[depth] = 0;
+                } else {
+                    // Order the moves by fewest onward moves and by distance from the exit side, so that the
+                    // far side of the block is covered first and the tour tends to end next to the exit
+                    int count = 0;
+                    for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+                        int next = neighbors[i];
+                        if (!visited[next]) {
+                            moves[depth * 8 + count] = next;
+                            keys[count] = degree[next] * degreeWeight + closeness[next];
+                            count++;
+                        }
+                    }
+                    if (random != null) {
+                        for (int i = count - 1; i > 0; i--) {
+                            int j = random.nextInt(i + 1);
+                            int move = moves[depth * 8 + i];
+                            int key = keys[i];
+                            moves[depth * 8 + i] = moves[depth * 8 + j];
+                            keys[i] = keys[j];
+                            moves[depth * 8 + j] = move;
+                            keys[j] = key;
+                        }
+                    }
+                    for (int i = 1; i < count; i++) {
+                        int move = moves[depth * 8 + i];
+                        int key = keys[i];
+                        int j = i - 1;
+                        while (j >= 0 && keys[j] > key) {
+                            moves[depth * 8 + j + 1] = moves[depth * 8 + j];
+                            keys[j + 1] = keys[j];
+                            j--;
+                        }
+                        moves[depth * 8 + j + 1] = move;
+                        keys[j + 1] = key;
+                    }
+                    moveCount[depth] = count;
+                    problem.createdNodes += count;
+                }
+                cursor[depth] = 0;
+
+                // Make the next move, backtracking out of exhausted squares
+                while (depth >= 0 && cursor[depth] == moveCount[depth]) {
+                    int square = path[depth];
+                    visited[square] = false;
+                    exitsLeft += exits[square] ? 1 : 0;
+                    for (int i = offsets[square]; i < offsets[square + 1]; i++) {
+                        degree[neighbors[i]]++;
+                    }
+                    depth--;
+                }
+                if (depth < 0 || nodes >= limit) {
+                    problem.expandedNodes += nodes;
+                    return null;
+                }
+                int next = moves[depth * 8 + cursor[depth]++];
+                depth++;
+                path[depth] = next;
+                visited[next] = true;
+                exitsLeft -= exits[next] ? 1 : 0;
+                for (int i = offsets[next]; i < offsets[next + 1]; i++) {
+                    degree[neighbors[i]]--;
+                }
+                nodes++;
+            }
+        }
+
+        // Method to check if the unvisited squares can no longer all be covered.
+        // A square without unvisited neighbors can only be the last square, entered straight from the
+        // current square, so one next to the previous square but not the current one is unreachable,
+        // and two of them next to the current square cannot both be last.
+        private boolean isDeadEnd(int depth, int[] path, boolean[] visited, byte[] degree) {
+            int from = path[depth];
+            int isolated = 0;
+            for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+                int square = neighbors[i];
+                if (!visited[square] && degree[square] == 0) {
+                    isolated++;
+                }
+            }
+            if (isolated > 1) {
+                return true;
+            }
+            if (depth > 0) {
+                int previous = path[depth - 1];
+                for (int i = offsets[previous]; i < offsets[previous + 1]; i++) {
+                    int square = neighbors[i];
+                    if (!visited[square] && degree[square] == 0 && !isKnightMove(from, square)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        // Method to check if two squares of the block are a knight move apart
+        private boolean isKnightMove(int from, int to) {
+            int dx = Math.abs(from / columns - to / columns);
+            int dy = Math.abs(from % columns - to % columns);
+            return dx * dy == 2;
+        }
+    }
+}
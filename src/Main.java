@@ -1,38 +1,110 @@
 import java.text.SimpleDateFormat;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.util.logging.*;
 import java.io.FileWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class Main {
 
+    static {
+        // Keep the log handlers open while a search stopped by Ctrl+C logs its statistics, set before the first logger
+        System.setProperty("java.util.logging.manager", ShutdownLogManager.class.getName());
+    }
+
+    private static final long INTERRUPT_GRACE_MILLIS = 10_000;  // Time a search stopped by Ctrl+C gets to finish its logging
     private static final Logger logger = Logger.getLogger(Main.class.getName());
 
     public static TreeSearch.Strategy strategy;
     public static Problem problem = new Problem();
+    private static String batchFile;                            // File with one job per line
+    private static final List<String> batchJobs = new ArrayList<>();    // Jobs given on the command line
+    private static int workers = 0;                             // Number of jobs or start squares solved at the same time, 0 for the default
+    private static String resultsFile;                          // Result records of the batch or all start squares mode
+    private static String outputDirectory;                      // Directory for the tours of the batch or all start squares mode
+    private static boolean allStarts = false;                   // Solve the board from every start square
+    private static boolean countTours = false;                  // Enumerate every tour instead of finding one
+    private static String toursFile;                            // File the enumerated tours are written to
+    private static double telemetrySeconds = 0;                 // Interval of the live search statistics, 0 when off
+    private static String telemetryFile;                        // CSV file of the live search statistics
+    private static int servePort = -1;                          // Port of the solve service, -1 when not serving
+    private static String bindAddress;                          // Address the solve service listens on, null for the loopback
+    private static int queueLimit = 16;                         // Solve requests waiting for a free search slot
+    private static int maxServedSize = 256;                     // Largest board size a solve request may ask for
+    private static String boardShape;                           // Rows and columns of a rectangular board, as RxC
+    private static String maskFile;                             // Text file with the shape and the holes of the board
+    private static String startSquare;                          // Start square as x,y, (1,1) or the first playable square by default
+    private static String validateFile;                         // Tour file to validate instead of solving
+    private static Thread interruptHook;                        // Shutdown hook stopping the running work on Ctrl+C
 
 
     public static void main(String[] args) {
         // Configure the logging settings
         configureLogging();
+        // Apply the command line options
+        parseArguments(args);
+        // Check a tour file written by an earlier run instead of solving
+        if (validateFile != null) {
+            validateTourFile();
+            return;
+        }
+        // Solve the listed jobs in this JVM instead of asking for a single problem
+        if (batchFile != null || !batchJobs.isEmpty()) {
+            runBatch();
+            return;
+        }
+        // Answer solve requests over HTTP until Ctrl+C instead of asking for a single problem
+        if (servePort >= 0) {
+            runServer();
+            return;
+        }
+        // Apply the board shape before the inputs, they only ask for the size of a square board
+        if (!configureBoard()) {
+            return;
+        }
         // Get user inputs for problem configuration
         getInputs();
+        if (!configureStart()) {
+            return;
+        }
+        if (problem.transpositionMegabytes > 0 && !TreeSearch.usesTranspositionTable(problem, strategy)) {
+            logger.warning("Ignoring --transposition, the table is only kept by the DFS strategies on the node frontier.");
+        }
+        if (problem.checkpointFile != null && (allStarts || countTours || !TreeSearch.usesCheckpoint(problem, strategy))) {
+            logger.warning("Ignoring --checkpoint, only a single DFS strategy search without --restarts or --threads is checkpointed.");
+        }
 
         // Log the problem configuration details
         logger.info("Problem configuration:\n" +
-                "                                                  Board size: " + problem.size + "\n" +
-                "                                                  Initial position (" + problem.startX + ", " + problem.startY + ")\n" +
+                "                                                  Board size: " + boardName() + "\n" +
+                "                                                  Initial position " + (allStarts ? "every square" : "(" + problem.startX + ", " + problem.startY + ")") + "\n" +
                 "                                                  Strategy " + strategy + "\n" +
-                "                                                  Time limit " + problem.timeLimit + " minutes.");
+                "                                                  Tour " + (problem.closedTour ? "closed" : "open") + "\n" +
+                "                                                  Time limit " + problem.timeLimit + " minutes.\n" +
+                "                                                  Engine " + engineName());
 
         // Create a TreeSearch instance with the problem configuration
         TreeSearch treeSearch = new TreeSearch(problem);
         // Record the start time of the search
         long startTime = System.currentTimeMillis();
         problem.startTime = startTime;
+        startTelemetry();
+        // Every start square has its own deadline, the solver cancels them all
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AllStartsSolver allStartsSolver = allStarts ? new AllStartsSolver(problem, strategy, threads,
+                resultsFile != null ? resultsFile : "all-starts.csv", outputDirectory != null ? outputDirectory : "tours") : null;
+        cancelOnInterrupt(allStartsSolver != null ? allStartsSolver::cancel : () -> problem.deadline().cancel());
         try {
             // Attempt to solve the problem using the specified strategy
-            treeSearch.solve(problem, strategy);
+            if (countTours) {
+                new TourEnumerator(problem, strategy, threads).enumerate(toursFile);
+            } else if (allStartsSolver != null) {
+                allStartsSolver.solve();
+            } else {
+                treeSearch.solve(problem, strategy);
+            }
         } catch (OutOfMemoryError e) {
             // Log a warning if an OutOfMemoryError occurs
             logger.warning("Out of memory error occurred: " + e.getMessage());
@@ -40,6 +112,7 @@ public class Main {
             // Log a warning if any other exception occurs
             logger.warning("An error occurred: " + e.getMessage());
         } finally {
+            stopTelemetry();
             // Record the end time of the search
             long endTime = System.currentTimeMillis();
             long timeSpent = endTime - startTime;
@@ -52,14 +125,350 @@ public class Main {
             logger.info("Nodes Created  -> " + String.format("%,d", problem.createdNodes));
             logger.info("Nodes Expanded -> " + String.format("%,d", problem.expandedNodes));
             logger.info("Time spent     -> " + formattedTime);
+            logCacheStatistics();
+            if (problem.pruneDeadEnds || problem.connectivityInterval > 0) {
+                logger.info("Pruned nodes   -> " + String.format("%,d", problem.prunedBranches));
+            }
+            if (problem.closedTour) {
+                logger.info("Closure pruned -> " + String.format("%,d", problem.closurePruned));
+            }
+            if (problem.bytesSpilled > 0) {
+                double spillSeconds = problem.spillNanos / 1e9;
+                double megabytes = (problem.bytesSpilled + problem.bytesRead) / (1024.0 * 1024.0);
+                logger.info("Bytes spilled  -> " + String.format("%,d", problem.bytesSpilled));
+                logger.info("Layer sizes    -> " + problem.layerSizes);
+                logger.info("Spill I/O      -> " + String.format("%.1f MB/s", spillSeconds > 0 ? megabytes / spillSeconds : 0));
+            }
+            clearInterruptHook();
+        }
+    }
+
+    // Method to read the jobs of the batch and solve them
+    private static void runBatch() {
+        List<String> lines = new ArrayList<>(batchJobs);
+        if (batchFile != null) {
+            try {
+                lines.addAll(Files.readAllLines(Paths.get(batchFile)));
+            } catch (IOException e) {
+                logger.warning("Failed to read the batch file " + batchFile + "." + e);
+                return;
+            }
+        }
+        if (boardShape != null || maskFile != null || startSquare != null) {
+            logger.warning("The board and start options do not apply to batch jobs, each job gives its own size and start.");
+        }
+        startTelemetry();
+        try {
+            BatchRunner runner = new BatchRunner(problem, Math.max(1, workers), resultsFile != null ? resultsFile : "batch-results.csv",
+                    outputDirectory != null ? outputDirectory : "batch");
+            cancelOnInterrupt(runner::cancel);
+            runner.run(BatchRunner.parseJobs(lines));
+            logCacheStatistics();
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid batch job: " + e.getMessage());
+        } finally {
+            stopTelemetry();
+            clearInterruptHook();
+        }
+    }
+
+    // Method to serve solve requests until the server is stopped by Ctrl+C
+    private static void runServer() {
+        startTelemetry();
+        try {
+            InetAddress address = bindAddress != null ? InetAddress.getByName(bindAddress) : InetAddress.getLoopbackAddress();
+            SolveServer server = new SolveServer(problem, address, servePort,
+                    workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), queueLimit, maxServedSize);
+            server.start();
+            cancelOnInterrupt(server::stop);
+            server.awaitStop();
+            logCacheStatistics();
+        } catch (IOException e) {
+            logger.warning("Failed to start the server on port " + servePort + "." + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopTelemetry();
+            clearInterruptHook();
+        }
+    }
+
+    // Method to validate a tour file in one pass over the mapped file
+    private static void validateTourFile() {
+        long start = System.nanoTime();
+        try {
+            TourFile tour = TourFile.open(Paths.get(validateFile));
+            TourValidator validator = tour.validate();
+            String time = String.format("%.1f ms", (System.nanoTime() - start) / 1e6);
+            if (validator.isValid()) {
+                logger.info("Tour file " + validateFile + ": " + tour.describe() + ", valid (" + time + ")");
+            } else {
+                logger.warning("Tour file " + validateFile + ": " + tour.describe() + ", invalid: " + validator.getError());
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to read the tour file " + validateFile + "." + e);
+        }
+    }
+
+    // Method to stop the search when Ctrl+C shuts the JVM down, and hold the shutdown until the calling
+    // thread has finished, so the statistics gathered so far are still logged and written
+    private static void cancelOnInterrupt(Runnable cancel) {
+        Thread worker = Thread.currentThread();
+        if (LogManager.getLogManager() instanceof ShutdownLogManager manager) {
+            manager.hold();
+        }
+        interruptHook = new Thread(() -> {
+            logger.warning("Interrupted, stopping the search.");
+            cancel.run();
+            try {
+                worker.join(INTERRUPT_GRACE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            releaseLogHandlers();
+        }, "interrupt-hook");
+        Runtime.getRuntime().addShutdownHook(interruptHook);
+    }
+
+    // Method to remove the Ctrl+C hook once the work it stops has finished
+    private static void clearInterruptHook() {
+        if (interruptHook == null) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(interruptHook);
+            releaseLogHandlers();
+        } catch (IllegalStateException e) {
+            // Already shutting down, the hook releases the log handlers once this thread has finished
+        }
+        interruptHook = null;
+    }
+
+    // Method to let the log handlers close if the JVM is shutting down
+    private static void releaseLogHandlers() {
+        if (LogManager.getLogManager() instanceof ShutdownLogManager manager) {
+            manager.release();
+        }
+    }
+
+    // Method to start reporting the live search statistics if requested
+    private static void startTelemetry() {
+        if (telemetrySeconds > 0 || telemetryFile != null) {
+            long intervalMillis = telemetrySeconds > 0 ? Math.max(1, Math.round(telemetrySeconds * 1000)) : 10_000;
+            problem.telemetry = new SearchTelemetry(intervalMillis, telemetryFile);
+            problem.telemetry.start();
+        }
+    }
+
+    // Method to stop reporting the live search statistics after a final report
+    private static void stopTelemetry() {
+        if (problem.telemetry != null) {
+            problem.telemetry.stop();
+        }
+    }
+
+    // Method to log the counters of the tour cache when it is enabled
+    private static void logCacheStatistics() {
+        TourCache cache = problem.cacheDirectory != null ? TourCache.open(problem.cacheDirectory, problem.cacheCapacity) : null;
+        if (cache != null) {
+            logger.info("Tour cache     -> " + cache.statistics());
+        }
+    }
+
+    // Method to set the board shape from the board and mask options, returns false if they are invalid
+    private static boolean configureBoard() {
+        try {
+            if (maskFile != null) {
+                List<String> lines = new ArrayList<>(Files.readAllLines(Paths.get(maskFile)));
+                while (!lines.isEmpty() && lines.get(lines.size() - 1).isBlank()) {
+                    lines.remove(lines.size() - 1);
+                }
+                int columns = lines.stream().mapToInt(String::length).max().orElse(0);
+                if (lines.isEmpty() || columns == 0) {
+                    logger.warning("The mask file " + maskFile + " is empty.");
+                    return false;
+                }
+                if (boardShape != null) {
+                    logger.warning("Ignoring --board, the board shape is taken from the mask file " + maskFile);
+                }
+                // Every line is a row, '#' and 'x' mark holes and missing characters at the end of a line too
+                BitSet holes = new BitSet(lines.size() * columns);
+                for (int x = 0; x < lines.size(); x++) {
+                    String line = lines.get(x);
+                    for (int y = 0; y < columns; y++) {
+                        char c = y < line.length() ? line.charAt(y) : '#';
+                        if (c == '#' || c == 'x' || c == 'X') {
+                            holes.set(x * columns + y);
+                        }
+                    }
+                }
+                problem.size = lines.size();
+                problem.columns = columns;
+                problem.holes = holes;
+            } else if (boardShape != null) {
+                String[] fields = boardShape.toLowerCase().split("x");
+                if (fields.length != 2) {
+                    logger.warning("Invalid board shape " + boardShape + ", expected rows x columns such as 6x8.");
+                    return false;
+                }
+                problem.size = Integer.parseInt(fields[0].trim());
+                problem.columns = Integer.parseInt(fields[1].trim());
+            } else {
+                return true;
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to read the mask file " + maskFile + "." + e);
+            return false;
+        } catch (NumberFormatException e) {
+            logger.warning("Invalid board shape " + boardShape + ", expected rows x columns such as 6x8.");
+            return false;
+        }
+        if (problem.size <= 0 || problem.columns <= 0) {
+            logger.warning("The board needs at least one row and one column.");
+            return false;
+        }
+        if (BoardTopology.of(problem).tourLength == 0) {
+            logger.warning("The board has no playable square.");
+            return false;
+        }
+        return true;
+    }
+
+    // Method to set the start square from the start option, or to the first playable square when (1,1)
+    // is a hole, returns false if the requested square is not on the board
+    private static boolean configureStart() {
+        BoardTopology topology = BoardTopology.of(problem);
+        if (startSquare != null) {
+            String[] fields = startSquare.split(",");
+            try {
+                problem.startX = Integer.parseInt(fields[0].trim());
+                problem.startY = fields.length == 2 ? Integer.parseInt(fields[1].trim()) : 0;
+            } catch (NumberFormatException e) {
+                problem.startY = 0;
+            }
+            if (fields.length != 2 || problem.startX < 1 || problem.startX > problem.size || problem.startY < 1
+                    || problem.startY > problem.columns() || !topology.isPlayable(topology.square(problem.startX, problem.startY))) {
+                logger.warning("The start square " + startSquare + " is not a playable square of the board.");
+                return false;
+            }
+        } else if (!topology.isPlayable(topology.square(problem.startX, problem.startY))) {
+            int square = 0;
+            while (!topology.isPlayable(square)) {
+                square++;
+            }
+            problem.startX = topology.x(square);
+            problem.startY = topology.y(square);
+            logger.info("Square (1, 1) is a hole, starting on (" + problem.startX + ", " + problem.startY + ")");
+        }
+        return true;
+    }
+
+    // Method to describe the board for the problem configuration
+    private static String boardName() {
+        if (problem.isSquareBoard()) {
+            return String.valueOf(problem.size);
+        }
+        int holes = problem.holes != null ? problem.holes.cardinality() : 0;
+        return problem.size + "x" + problem.columns() + (holes > 0 ? " with " + holes + " holes" : "");
+    }
+
+    // Method to describe the search engine selected for the strategy
+    private static String engineName() {
+        if (countTours) {
+            return "tour enumeration";
+        }
+        if (strategy == TreeSearch.Strategy.DIVIDE_AND_CONQUER) {
+            return "divide and conquer construction";
+        }
+        if (strategy == TreeSearch.Strategy.PORTFOLIO) {
+            return "portfolio of " + PortfolioSearch.defaultPortfolio().size() + " configurations";
+        }
+        if (strategy == TreeSearch.Strategy.BFS) {
+            if (TreeSearch.needsNodeFrontier(problem)) {
+                return "node frontier";
+            }
+            if (problem.spillDirectory != null) {
+                return "disk-spilling frontier in " + problem.spillDirectory;
+            }
+            return problem.compactFrontier ? "compact frontier" : "node frontier";
+        }
+        if (problem.restartSchedule != null) {
+            return "randomized restarts with " + problem.restartSchedule + " backtrack budgets of " + problem.restartBudget;
+        }
+        if (problem.threads > 1) {
+            return "parallel backtracking on " + problem.threads + " threads";
+        }
+        if (problem.checkpointFile != null) {
+            return "in-place backtracking with checkpoints in " + problem.checkpointFile;
+        }
+        if (problem.inPlace && problem.seed != null) {
+            return "in-place backtracking with random tie-breaks, seed " + problem.seed;
+        }
+        if (TreeSearch.usesTranspositionTable(problem, strategy)) {
+            return "node frontier with a " + problem.transpositionMegabytes + " MB transposition table";
+        }
+        return problem.inPlace ? "in-place backtracking" : "node frontier";
+    }
+
+    // Method to apply the command line options to the problem configuration
+    public static void parseArguments(String[] args) {
+        for (String arg : args) {
+            // Options are either flags or of the form --name=value
+            String name = arg.contains("=") ? arg.substring(0, arg.indexOf('=')) : arg;
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : null;
+            switch (name) {
+                case "--in-place" -> problem.inPlace = true;
+                case "--compact-frontier" -> problem.compactFrontier = true;
+                case "--spill-dir" -> problem.spillDirectory = value;
+                case "--threads" -> problem.threads = Integer.parseInt(value);
+                case "--text-path" -> problem.textPath = true;
+                case "--closed" -> problem.closedTour = true;
+                case "--prune" -> problem.pruneDeadEnds = true;
+                case "--connectivity" -> problem.connectivityInterval = Integer.parseInt(value);
+                case "--batch" -> batchFile = value;
+                case "--job" -> batchJobs.add(value);
+                case "--workers" -> workers = Integer.parseInt(value);
+                case "--results" -> resultsFile = value;
+                case "--output-dir" -> outputDirectory = value;
+                case "--all-starts" -> allStarts = true;
+                case "--count" -> countTours = true;
+                case "--tours-file" -> toursFile = value;
+                case "--cache-dir" -> problem.cacheDirectory = value;
+                case "--cache-size" -> problem.cacheCapacity = Integer.parseInt(value);
+                case "--checkpoint" -> problem.checkpointFile = value;
+                case "--checkpoint-interval" -> problem.checkpointInterval = Integer.parseInt(value);
+                case "--resume" -> problem.resume = true;
+                case "--telemetry" -> telemetrySeconds = Double.parseDouble(value);
+                case "--telemetry-csv" -> telemetryFile = value;
+                case "--restarts" -> {
+                    if ("luby".equals(value) || "geometric".equals(value)) {
+                        problem.restartSchedule = value;
+                    } else {
+                        logger.warning("Ignoring unknown restart schedule: " + value + ", expected luby or geometric.");
+                    }
+                }
+                case "--restart-budget" -> problem.restartBudget = Long.parseLong(value);
+                case "--restart-factor" -> problem.restartFactor = Double.parseDouble(value);
+                case "--seed" -> problem.seed = Long.parseLong(value);
+                case "--serve" -> servePort = Integer.parseInt(value);
+                case "--queue" -> queueLimit = Integer.parseInt(value);
+                case "--bind" -> bindAddress = value;
+                case "--max-size" -> maxServedSize = Integer.parseInt(value);
+                case "--board" -> boardShape = value;
+                case "--mask" -> maskFile = value;
+                case "--start" -> startSquare = value;
+                case "--validate" -> validateFile = value;
+                case "--transposition" -> problem.transpositionMegabytes = Long.parseLong(value);
+                default -> logger.warning("Ignoring unknown option: " + arg);
+            }
         }
     }
 
     // Method to get user inputs for problem configuration
     public static void getInputs() {
         Scanner scanner = new Scanner(System.in);
-        // Loop to get a valid board size from the user
-        while (true) {
+        // Loop to get a valid board size from the user, unless the board options already gave the shape
+        while (problem.size <= 0) {
             System.out.print("Please enter the size of the board: ");
             if (scanner.hasNextInt()) {
                 problem.size = scanner.nextInt();
@@ -76,16 +485,15 @@ public class Main {
             System.out.println("2. Depth First Search");
             System.out.println("3. Depth First Search with Node Selection Heuristic h1b");
             System.out.println("4. Depth First Search with Node Selection Heuristic h2");
+            System.out.println("5. Portfolio of Heuristic Depth First Searches");
+            System.out.println("6. Divide and Conquer Construction for Large Boards");
+            System.out.println("7. Depth First Search with Node Selection Heuristic h3 (two-move lookahead)");
             System.out.print("Please enter the search strategy: ");
 
             if (scanner.hasNextInt()) {
-                int choice = scanner.nextInt();
-                switch (choice) {
-                    case 1 -> strategy = TreeSearch.Strategy.BFS;
-                    case 2 -> strategy = TreeSearch.Strategy.DFS;
-                    case 3 -> strategy = TreeSearch.Strategy.DFS_H1B;
-                    case 4 -> strategy = TreeSearch.Strategy.DFS_H2;
-                    default -> System.out.println("\nInvalid input. Please enter a valid strategy (1, 2, 3 or 4).\n");
+                strategy = strategyOf(scanner.nextInt());
+                if (strategy == null) {
+                    System.out.println("\nInvalid input. Please enter a valid strategy (1 to 7).\n");
                 }
             } else {
                 scanner.next(); // Clear invalid input
@@ -105,6 +513,20 @@ public class Main {
         }
     }
 
+    // Method to map a menu choice to its search strategy, null if the choice is invalid
+    public static TreeSearch.Strategy strategyOf(int choice) {
+        return switch (choice) {
+            case 1 -> TreeSearch.Strategy.BFS;
+            case 2 -> TreeSearch.Strategy.DFS;
+            case 3 -> TreeSearch.Strategy.DFS_H1B;
+            case 4 -> TreeSearch.Strategy.DFS_H2;
+            case 5 -> TreeSearch.Strategy.PORTFOLIO;
+            case 6 -> TreeSearch.Strategy.DIVIDE_AND_CONQUER;
+            case 7 -> TreeSearch.Strategy.DFS_H3;
+            default -> null;
+        };
+    }
+
     // Method to configure logging settings
     public static void configureLogging() {
         try {
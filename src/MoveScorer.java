@@ -0,0 +1,51 @@
+// Heuristic that orders the candidate moves of the depth-first strategies.
+// A scorer packs everything it compares into one int per candidate, computed once before the sort,
+// and lower scores are tried first. The engines order the at most eight candidates of a square with
+// an insertion sort on these ints, so a new heuristic only needs a scorer and a strategy, and never
+// touches the search loops. Static parts of a score, like the corner distance, are read from the
+// tables of the BoardTopology, which is built once per board shape.
+public interface MoveScorer {
+
+    // Board state of a search engine that the scores are computed from
+    interface Board {
+        // Number of possible moves from an unvisited square. For closed tours the start square still
+        // counts as a move, so that the heuristics do not use up the squares the tour returns through.
+        int exits(int square);
+
+        boolean isVisited(int square);
+    }
+
+    // Method to compute the score of moving to an unvisited square, lower is better
+    int score(BoardTopology topology, Board board, int square);
+
+    // Warnsdorff's rule: the square with the fewest onward moves first (DFS_H1B)
+    MoveScorer WARNSDORFF = (topology, board, square) -> board.exits(square);
+
+    // Warnsdorff's rule, ties broken by the square nearest to a corner (DFS_H2)
+    MoveScorer CORNER = (topology, board, square) ->
+            board.exits(square) * (topology.rows + topology.columns) + topology.cornerDistance[square];
+
+    // Warnsdorff's rule, ties broken by the lowest sum of the onward moves of the squares reachable
+    // after the move, a lookahead of two moves (DFS_H3). Each of the at most eight neighbors keeps
+    // fewer than eight moves once the square is taken, so the sum fits in six bits.
+    MoveScorer LOOKAHEAD = (topology, board, square) -> {
+        int sum = 0;
+        for (int i = topology.offsets[square]; i < topology.offsets[square + 1]; i++) {
+            int next = topology.neighbors[i];
+            if (!board.isVisited(next)) {
+                sum += board.exits(next) - 1;
+            }
+        }
+        return board.exits(square) << 6 | sum;
+    };
+
+    // Method to get the scorer of a strategy, null for a strategy that keeps the move order
+    static MoveScorer of(TreeSearch.Strategy strategy) {
+        return switch (strategy) {
+            case DFS_H1B -> WARNSDORFF;
+            case DFS_H2 -> CORNER;
+            case DFS_H3 -> LOOKAHEAD;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+// Depth-first search that splits the top of the search tree into disjoint subtrees and explores
+// them concurrently on a ForkJoinPool. Each worker thread owns a BacktrackingSearch engine with its
+// own counters, the first tour found wins and stops every other worker.
+public class ParallelSearch {
+    private static final int SPLIT_DEPTH = 4;   // Depth at which subtrees are searched sequentially
+
+    Logger logger = Logger.getLogger(ParallelSearch.class.getName());
+    Problem problem;
+    TreeSearch.Strategy strategy;
+
+    private final AtomicBoolean stop = new AtomicBoolean(false);
+    private final AtomicReference<int[]> solution = new AtomicReference<>();
+    private final ThreadLocal<BacktrackingSearch> engines;
+    private final int squares;
+
+    int[] path;                 // Square indices of the tour when a solution is found
+    int pathLength;             // Number of squares in the path when a solution is found
+    volatile boolean timedOut;  // Whether the search stopped because of the time limit
+
+    // Constructor to initialize the search with a problem instance and a move ordering strategy
+    public ParallelSearch(Problem problem, TreeSearch.Strategy strategy) {
+        this.problem = problem;
+        this.strategy = strategy;
+        this.squares = BoardTopology.of(problem).tourLength;
+        this.engines = ThreadLocal.withInitial(() -> {
+            BacktrackingSearch engine = new BacktrackingSearch(problem, strategy, stop);
+            engine.quiet = true;
+            return engine;
+        });
+    }
+
+    // Method to run the search on the configured number of threads, returns true if a tour was found
+    public boolean search() {
+        ForkJoinPool pool = new ForkJoinPool(problem.threads);
+        try {
+            int[] root = {BoardTopology.of(problem).square(problem.startX, problem.startY)};
+            pool.invoke(new SubtreeTask(root));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int[] tour = solution.get();
+        if (tour != null) {
+            path = tour;
+            pathLength = tour.length;
+            return true;
+        }
+        if (timedOut) {
+            logger.warning(problem.deadline().message());
+        }
+        return false;
+    }
+
+    // Task exploring the subtree below a path prefix
+    private class SubtreeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] prefix;
+
+        SubtreeTask(int[] prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected void compute() {
+            if (stop.get()) {
+                return;
+            }
+            BacktrackingSearch engine = engines.get();
+
+            // Split the subtree into one task per child until the split depth is reached
+            if (prefix.length <= SPLIT_DEPTH && prefix.length < squares) {
+                int[] children = new int[8];
+                int count = engine.orderedMoves(prefix, prefix.length, children);
+                List<SubtreeTask> tasks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int[] child = Arrays.copyOf(prefix, prefix.length + 1);
+                    child[prefix.length] = children[i];
+                    tasks.add(new SubtreeTask(child));
+                }
+                invokeAll(tasks);
+                return;
+            }
+
+            // Search the subtree sequentially, the first tour found stops every other task
+            if (engine.search(prefix, prefix.length)) {
+                if (solution.compareAndSet(null, Arrays.copyOf(engine.path, engine.pathLength))) {
+                    stop.set(true);
+                }
+            } else if (engine.timedOut) {
+                timedOut = true;
+                stop.set(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import java.util.logging.Logger;
+
+// Streaming output of a tour. Squares are encoded straight into a reused buffer and written through a
+// file channel, so no string is built per square and the cost of the output is linear in the path length.
+// The tour file is in the binary TourFile format; its header is written first with a length of zero and
+// rewritten in place once the path is complete. The optional text file next to it keeps the
+// "[(x,y), (x,y), ...]" layout of the earlier releases.
+public class PathWriter implements IntConsumer, AutoCloseable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_RECORD_BYTES = 32;     // Upper bound of the bytes of a text record ", (x,y)" and "]"
+
+    Logger logger = Logger.getLogger(PathWriter.class.getName());
+    boolean logSummary = true;  // Whether closing logs the summary line, off when many tours are written
+
+    private final BoardTopology topology;
+    private final boolean closed;
+    private final int width;        // Bytes per square index in the tour file
+    private final Path tourFile;
+    private final Path textFile;
+    private final FileChannel tour;
+    private final FileChannel text;
+    private final ByteBuffer tourBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final ByteBuffer textBuffer;
+    private long count = 0;
+    private int first = -1;
+    private int last = -1;
+    private IOException failure;    // First write error, later squares are dropped once it is set
+    private boolean discarded = false;
+
+    // Constructor to open the output files, the text file next to the tour file is only written if requested
+    public PathWriter(BoardTopology topology, String pathFile, boolean writeText, boolean closed) throws IOException {
+        this.topology = topology;
+        this.closed = closed;
+        this.width = TourFile.widthOf(topology.squares);
+        this.tourFile = Paths.get(pathFile);
+        this.textFile = writeText ? textFileOf(tourFile) : null;
+        this.tour = open(tourFile);
+        this.text = writeText ? open(textFile) : null;
+        this.textBuffer = writeText ? ByteBuffer.allocateDirect(BUFFER_BYTES) : null;
+        ByteBuffer header = TourFile.header(topology, closed, 0);
+        while (header.hasRemaining()) {
+            tour.write(header);
+        }
+        if (writeText) {
+            textBuffer.put((byte) '[');
+        }
+    }
+
+    // Method to get the text file that belongs to a tour file, path.bin goes with path.txt
+    static Path textFileOf(Path tourFile) {
+        String name = tourFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return tourFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".txt");
+    }
+
+    // Method to open an output file, replacing the previous one
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // Method to write the next square of the path
+    @Override
+    public void accept(int square) {
+        if (failure != null || discarded) {
+            return;
+        }
+        try {
+            if (tourBuffer.remaining() < Integer.BYTES) {
+                drain(tourBuffer, tour);
+            }
+            switch (width) {
+                case 1 -> tourBuffer.put((byte) square);
+                case 2 -> tourBuffer.putShort((short) square);
+                default -> tourBuffer.putInt(square);
+            }
+
+            if (text != null) {
+                if (textBuffer.remaining() < MAX_RECORD_BYTES) {
+                    drain(textBuffer, text);
+                }
+                if (count > 0) {
+                    textBuffer.put((byte) ',').put((byte) ' ');
+                }
+                textBuffer.put((byte) '(');
+                putDecimal(topology.x(square));
+                textBuffer.put((byte) ',');
+                putDecimal(topology.y(square));
+                textBuffer.put((byte) ')');
+            }
+        } catch (IOException e) {
+            failure = e;
+            return;
+        }
+        if (count++ == 0) {
+            first = square;
+        }
+        last = square;
+    }
+
+    // Method to write a whole path given as a sequence of square indices
+    public void writeAll(int[] squares, int length) {
+        writeAll(squares, 0, length);
+    }
+
+    // Method to write a closed tour rotated to begin at the given offset of the sequence
+    public void writeAll(int[] squares, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            accept(squares[(offset + i) % length]);
+        }
+    }
+
+    // Method to encode a non-negative number as ASCII digits without creating a string
+    private void putDecimal(int value) {
+        int divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            textBuffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    // Method to write the buffered bytes to a channel and make the buffer empty again
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Method to flush and close the output files and log a summary of the path
+    @Override
+    public void close() {
+        if (!tour.isOpen()) {
+            return;
+        }
+        try {
+            if (failure == null && !discarded) {
+                drain(tourBuffer, tour);
+                // Rewrite the header with the length of the path
+                ByteBuffer header = TourFile.header(topology, closed, (int) count);
+                while (header.hasRemaining()) {
+                    tour.write(header, header.position());
+                }
+                if (text != null) {
+                    textBuffer.put((byte) ']');
+                    drain(textBuffer, text);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            closeQuietly(tour);
+            closeQuietly(text);
+        }
+
+        if (discarded) {
+            return;
+        }
+        if (failure != null) {
+            logger.warning("Failed to write path to file." + failure);
+        } else if (count > 0 && logSummary) {
+            logger.info("Path: " + String.format("%,d", count) + " squares from (" + topology.x(first) + ","
+                    + topology.y(first) + ") to (" + topology.x(last) + "," + topology.y(last) + ") written to "
+                    + tourFile + (text != null ? " and " + textFile : ""));
+        }
+    }
+
+    // Method to remove the output files, used when the streamed path turns out to be invalid
+    public void discard() {
+        discarded = true;
+        close();
+        try {
+            Files.deleteIfExists(tourFile);
+            if (textFile != null) {
+                Files.deleteIfExists(textFile);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to delete the path files." + e);
+        }
+    }
+
+    // Method to close a channel, ignoring errors since the data was already written or discarded
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+// Portfolio solver that races several heuristic configurations on their own threads.
+// Every configuration searches the whole tree with a different heuristic, move order or random
+// tie-break, so the first one to finish decides the outcome and the others are stopped.
+public class PortfolioSearch {
+    Logger logger = Logger.getLogger(PortfolioSearch.class.getName());
+    Problem problem;
+
+    private final List<Configuration> configurations;
+    private final AtomicBoolean stop = new AtomicBoolean(false);
+
+    int[] path;         // Square indices of the tour when a solution is found
+    int pathLength;     // Number of squares in the path when a solution is found
+    boolean timedOut;   // Whether the search stopped because of the time limit
+    String winner;      // Name of the configuration that finished first
+
+    // A single entry of the portfolio
+    static class Configuration {
+        final String name;
+        final TreeSearch.Strategy strategy;
+        final int[][] directions;
+        final Long seed;    // Seed of the random tie-break, null to keep the deterministic order
+
+        Configuration(String name, TreeSearch.Strategy strategy, int[][] directions, Long seed) {
+            this.name = name;
+            this.strategy = strategy;
+            this.directions = directions;
+            this.seed = seed;
+        }
+    }
+
+    // Constructor to initialize the search with the default portfolio
+    public PortfolioSearch(Problem problem) {
+        this(problem, defaultPortfolio());
+    }
+
+    // Constructor to initialize the search with a custom portfolio
+    public PortfolioSearch(Problem problem, List<Configuration> configurations) {
+        this.problem = problem;
+        this.configurations = configurations;
+    }
+
+    // Method to build the default portfolio of heuristics, move orders and tie-break seeds
+    static List<Configuration> defaultPortfolio() {
+        int[][] reversed = new int[TreeSearch.directions.length][];
+        for (int i = 0; i < reversed.length; i++) {
+            reversed[i] = TreeSearch.directions[reversed.length - 1 - i];
+        }
+        List<Configuration> portfolio = new ArrayList<>();
+        portfolio.add(new Configuration("DFS_H2", TreeSearch.Strategy.DFS_H2, TreeSearch.directions, null));
+        portfolio.add(new Configuration("DFS_H1B", TreeSearch.Strategy.DFS_H1B, TreeSearch.directions, null));
+        portfolio.add(new Configuration("DFS_H2 reversed", TreeSearch.Strategy.DFS_H2, reversed, null));
+        portfolio.add(new Configuration("DFS_H1B reversed", TreeSearch.Strategy.DFS_H1B, reversed, null));
+        for (long seed = 1; seed <= 2; seed++) {
+            portfolio.add(new Configuration("DFS_H2 seed " + seed, TreeSearch.Strategy.DFS_H2, TreeSearch.directions, seed));
+            portfolio.add(new Configuration("DFS_H1B seed " + seed, TreeSearch.Strategy.DFS_H1B, TreeSearch.directions, seed));
+        }
+        return portfolio;
+    }
+
+    // Method to race the configurations, returns true if a tour was found
+    public boolean search() {
+        List<BacktrackingSearch> engines = new ArrayList<>();
+        for (Configuration configuration : configurations) {
+            BoardTopology topology = configuration.directions == TreeSearch.directions
+                    ? BoardTopology.of(problem)
+                    : BoardTopology.of(problem).withDirections(configuration.directions);
+            BacktrackingSearch engine = new BacktrackingSearch(problem, configuration.strategy, stop, topology);
+            engine.seed = configuration.seed;
+            engine.quiet = true;
+            engines.add(engine);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(engines.size());
+        ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        try {
+            for (int i = 0; i < engines.size(); i++) {
+                int index = i;
+                completion.submit(() -> engines.get(index).search() ? index : -1 - index);
+            }
+
+            // Wait for the first configuration that either finds a tour or exhausts the tree
+            for (int finished = 0; finished < engines.size(); finished++) {
+                int result = completion.take().get();
+                BacktrackingSearch engine = engines.get(result >= 0 ? result : -1 - result);
+                if (result >= 0) {
+                    winner = configurations.get(result).name;
+                    path = engine.path.clone();
+                    pathLength = engine.pathLength;
+                    return true;
+                }
+                if (engine.timedOut) {
+                    timedOut = true;
+                    logger.warning(problem.deadline().message());
+                    return false;
+                }
+                if (!engine.stopped) {
+                    // Every configuration searches the whole tree, so one exhausted tree proves there is no tour
+                    winner = configurations.get(-1 - result).name;
+                    return false;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            logger.warning("Portfolio configuration failed." + e.getCause());
+            return false;
+        } finally {
+            stop.set(true);
+            executor.shutdown();
+            awaitTermination(executor);
+            logSummary(engines);
+        }
+    }
+
+    // Method to wait for the stopped configurations so that their counters are merged
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Method to log the winning configuration and the work done by every configuration
+    private void logSummary(List<BacktrackingSearch> engines) {
+        StringBuilder summary = new StringBuilder("Portfolio summary, first to finish: " + (winner == null ? "none" : winner));
+        for (int i = 0; i < engines.size(); i++) {
+            summary.append(String.format("%n%50s%-20s -> %,d nodes expanded", "",
+                    configurations.get(i).name, engines.get(i).totalExpanded));
+        }
+        logger.info(summary.toString());
+    }
+}
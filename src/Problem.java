@@ -1,9 +1,93 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
 public class Problem {
-    public int size;
+    public int size;                        // Rows of the board, and its columns when they are not given
+    public int columns = 0;                 // Columns of a rectangular board, 0 for a square board
+    public BitSet holes;                    // Squares cut out of the board, null or empty for a full board
     public int timeLimit;
+    public long timeLimitMillis = 0;        // Time limit in milliseconds, used instead of timeLimit in minutes when set
     public int startX = 1;
     public int startY = 1;
     public long expandedNodes = 0;
     public long createdNodes = 1;
+    public long closurePruned = 0;          // Branches cut because they could no longer return to the start
+    public long prunedBranches = 0;         // Branches cut by the dead-end and connectivity checks
     public long startTime;
+    public boolean closedTour = false;      // Require the last square to be a knight move from the start
+    public boolean pruneDeadEnds = false;   // Cut moves that leave a square that can no longer be covered
+    public int connectivityInterval = 0;    // Check that the unvisited squares stay connected every n moves, 0 when off
+    public boolean inPlace = false;         // Use the in-place backtracking engine for DFS strategies
+    public boolean compactFrontier = false; // Store the BFS frontier as packed primitive records
+    public int threads = 1;                 // Number of threads for the parallel DFS strategies
+    public String pathFile = "path.bin";    // Tour file the tour is written to, in the TourFile format
+    public boolean textPath = false;        // Also write the path as "[(x,y), ...]" text to path.txt
+    public long transpositionMegabytes = 0; // Memory budget of the transposition table of the DFS strategies, 0 when off
+    public String cacheDirectory;           // Directory of the persistent tour cache, null to always search
+    public int cacheCapacity = 1000;        // Maximum number of tours kept in the cache
+    public String checkpointFile;           // Snapshot file of the in-place DFS, null when off; not copied to batch jobs
+    public int checkpointInterval = 60;     // Seconds between two snapshots
+    public boolean resume = false;          // Continue from the snapshot file if it matches the search
+    public String restartSchedule;          // Backtrack budgets of randomized restarts, "luby" or "geometric", null when off
+    public long restartBudget = 1000;       // Backtracks of the first restart attempt, the unit of the schedule
+    public double restartFactor = 1.5;      // Growth of the budget between two attempts of the geometric schedule
+    public Long seed;                       // Seed of the random tie-break, null to keep the deterministic order
+    public SearchTelemetry telemetry;       // Live statistics of the searches, null when they are not reported
+    public String spillDirectory;           // Scratch directory for spilling BFS layers to disk, null to keep them on the heap
+    public long bytesSpilled = 0;
+    public long bytesRead = 0;
+    public long spillNanos = 0;             // Time spent mapping, writing and reading the spilled layers
+    public List<Long> layerSizes = new ArrayList<>();
+    private Deadline deadline;              // Created when the search first checks it
+
+    // Method to get the deadline of the search, counted from the start time
+    public synchronized Deadline deadline() {
+        if (deadline == null) {
+            deadline = timeLimitMillis > 0
+                    ? new Deadline(startTime, timeLimitMillis, String.format("%.1f seconds", timeLimitMillis / 1000.0))
+                    : new Deadline(startTime, timeLimit);
+        }
+        return deadline;
+    }
+
+    // Method to get the number of columns of the board
+    public int columns() {
+        return columns > 0 ? columns : size;
+    }
+
+    // Method to check if the board is a full square board, the shape every engine supports
+    public boolean isSquareBoard() {
+        return columns() == size && (holes == null || holes.isEmpty());
+    }
+
+    // Method to create a problem with the same engine options and fresh statistics
+    public Problem copyOptions() {
+        Problem copy = new Problem();
+        copy.size = size;
+        copy.columns = columns;
+        copy.holes = holes;
+        copy.timeLimit = timeLimit;
+        copy.timeLimitMillis = timeLimitMillis;
+        copy.startX = startX;
+        copy.startY = startY;
+        copy.closedTour = closedTour;
+        copy.pruneDeadEnds = pruneDeadEnds;
+        copy.connectivityInterval = connectivityInterval;
+        copy.inPlace = inPlace;
+        copy.compactFrontier = compactFrontier;
+        copy.threads = threads;
+        copy.pathFile = pathFile;
+        copy.textPath = textPath;
+        copy.transpositionMegabytes = transpositionMegabytes;
+        copy.cacheDirectory = cacheDirectory;
+        copy.cacheCapacity = cacheCapacity;
+        copy.spillDirectory = spillDirectory;
+        copy.restartSchedule = restartSchedule;
+        copy.restartBudget = restartBudget;
+        copy.restartFactor = restartFactor;
+        copy.seed = seed;
+        copy.telemetry = telemetry;
+        return copy;
+    }
 }
@@ -0,0 +1,94 @@
+import java.util.logging.Logger;
+
+// Heuristic depth-first search with randomized restarts.
+// Every attempt breaks the ties between moves of equal heuristic value with its own random seed and
+// may only backtrack a limited number of times. A heuristic search that made a bad choice near the
+// root rarely recovers before the time limit, so an attempt that spends its budget is abandoned and
+// the next one starts over from the root with the next seed and a budget from the schedule:
+// the Luby sequence 1, 1, 2, 1, 1, 2, 4, ... times the base budget, or a budget growing geometrically.
+// Attempt i uses seed + i - 1, so a run is reproduced by its seed and the winning attempt alone by
+// its own seed without a budget.
+public class RestartSearch {
+    Logger logger = Logger.getLogger(RestartSearch.class.getName());
+    Problem problem;
+    TreeSearch.Strategy strategy;
+
+    private final boolean luby;     // Luby schedule, geometric otherwise
+    private final long firstSeed;
+
+    int[] path;         // Square indices of the tour when a solution is found
+    int pathLength;     // Number of squares in the path when a solution is found
+    boolean timedOut;   // Whether the search stopped because of the time limit
+    int attempts = 0;   // Attempts started
+    long backtracks = 0;        // Backtracks over every attempt
+    long maxBacktracks = 0;     // Largest number of backtracks of a single attempt
+    Long winningSeed;   // Seed of the attempt that found the tour, null if none did
+
+    // Constructor to initialize the search with a problem instance and a move ordering strategy
+    public RestartSearch(Problem problem, TreeSearch.Strategy strategy) {
+        this.problem = problem;
+        this.strategy = strategy;
+        this.luby = !"geometric".equals(problem.restartSchedule);
+        this.firstSeed = problem.seed != null ? problem.seed : 1;
+    }
+
+    // Method to run attempts until one finds a tour, one proves there is none or the time is up
+    public boolean search() {
+        BacktrackingSearch engine = new BacktrackingSearch(problem, strategy);
+        long budget = 0;
+        try {
+            while (true) {
+                attempts++;
+                long seed = firstSeed + attempts - 1;
+                budget = budget(attempts);
+                engine.seed = seed;
+                engine.backtrackLimit = budget;
+                boolean found = engine.search();
+                backtracks += engine.backtracks;
+                maxBacktracks = Math.max(maxBacktracks, engine.backtracks);
+                logger.fine(String.format("Attempt %d with seed %d: %,d of %,d backtracks", attempts, seed,
+                        engine.backtracks, budget));
+                if (found) {
+                    path = engine.path;
+                    pathLength = engine.pathLength;
+                    winningSeed = seed;
+                    return true;
+                }
+                if (engine.timedOut) {
+                    timedOut = true;
+                    return false;
+                }
+                if (!engine.cutOff) {
+                    // The attempt explored the whole tree within its budget, so there is no tour
+                    return false;
+                }
+            }
+        } finally {
+            logger.info(String.format("Restarts       -> %,d attempts (%s schedule, last budget %,d), %,d backtracks, %,.0f per attempt (max %,d), winning seed %s",
+                    attempts, luby ? "Luby" : "geometric", budget, backtracks, (double) backtracks / Math.max(1, attempts),
+                    maxBacktracks, winningSeed != null ? winningSeed : "none"));
+        }
+    }
+
+    // Method to compute the backtrack budget of an attempt, counted from 1
+    long budget(int attempt) {
+        double scale = luby ? luby(attempt) : Math.pow(problem.restartFactor, attempt - 1);
+        return (long) Math.min(Long.MAX_VALUE / 2, Math.max(1, problem.restartBudget * scale));
+    }
+
+    // Method to compute the i-th term of the Luby sequence, counted from 1
+    static long luby(int i) {
+        while (true) {
+            // Find the smallest k with 2^k - 1 >= i; the term closes a block of 2^k - 1 terms or repeats
+            // the sequence from its start
+            int k = 1;
+            while ((1L << k) - 1 < i) {
+                k++;
+            }
+            if ((1L << k) - 1 == i) {
+                return 1L << (k - 1);
+            }
+            i -= (1 << (k - 1)) - 1;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+
+// Search tree of the node engine, kept in parallel primitive arrays instead of one object per node.
+// A node is a handle, its index in the arrays, with its square, the handle of its parent and its depth.
+// The board of a node is not stored: it is the set of squares on its path from the root, and the engine
+// keeps a single board that it moves from node to node by undoing and replaying the squares where the
+// two paths differ. Nodes are only appended, so the BFS frontier is a range of handles, and the DFS
+// frontier is the top of the arena, which is truncated when the subtree of a node is finished.
+public class SearchArena {
+    static final int BYTES_PER_NODE = 3 * Integer.BYTES;
+    private static final int MAX_NODES = Integer.MAX_VALUE - 8;
+
+    private int[] squares;
+    private int[] parents;      // Handle of the parent, -1 for the root
+    private int[] depths;       // Ints, since the node engine runs boards of more than 32767 squares
+    private int size = 0;
+    private int peak = 0;       // Largest number of nodes held at once
+
+    // Constructor to create an empty arena with room for a number of nodes
+    public SearchArena(int capacity) {
+        capacity = Math.max(16, capacity);
+        this.squares = new int[capacity];
+        this.parents = new int[capacity];
+        this.depths = new int[capacity];
+    }
+
+    // Method to add a node, returns its handle
+    public int add(int square, int parent, int depth) {
+        if (size == squares.length) {
+            grow();
+        }
+        squares[size] = square;
+        parents[size] = parent;
+        depths[size] = depth;
+        peak = Math.max(peak, size + 1);
+        return size++;
+    }
+
+    // Method to double the capacity of the arrays
+    private void grow() {
+        if (size == MAX_NODES) {
+            throw new OutOfMemoryError("Search arena is full");
+        }
+        int capacity = (int) Math.min(MAX_NODES, 2L * squares.length);
+        squares = Arrays.copyOf(squares, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+    }
+
+    int square(int node) {
+        return squares[node];
+    }
+
+    int parent(int node) {
+        return parents[node];
+    }
+
+    int depth(int node) {
+        return depths[node];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int peak() {
+        return peak;
+    }
+
+    // Method to drop the nodes from a handle on, their handles are reused by the next nodes added
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    // Method to drop every node
+    void clear() {
+        size = 0;
+    }
+
+    // Method to get the bytes held by the arrays
+    long bytes() {
+        return (long) squares.length * BYTES_PER_NODE;
+    }
+
+    // Method to get the squares on the path from the root to a node
+    int[] path(int node) {
+        int[] path = new int[depths[node] + 1];
+        for (int i = node; i >= 0; i = parents[i]) {
+            path[depths[i]] = squares[i];
+        }
+        return path;
+    }
+
+    // Method to sort the nodes of a range by descending key, keeping the order of equal keys.
+    // The ranges are the children of one node, at most eight of them.
+    void sortDescending(int from, int to, int[] keys) {
+        for (int i = from + 1; i < to; i++) {
+            int square = squares[i];
+            int key = keys[i - from];
+            int j = i - 1;
+            while (j >= from && keys[j - from] < key) {
+                squares[j + 1] = squares[j];
+                keys[j + 1 - from] = keys[j - from];
+                j--;
+            }
+            squares[j + 1] = square;
+            keys[j + 1 - from] = key;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Periodic snapshots of an in-place depth-first search, so that a search stopped by its time limit,
+// by Ctrl+C or by a crash can continue where it left off. The state is the current path and the move
+// cursor of every depth; the candidate moves themselves are generated again from the board when the
+// search is resumed. A timer only raises a flag, the search copies the two arrays when it sees the flag
+// and a background thread encodes and writes them, so the search loop never waits for the disk.
+// The file holds a header with the board shape, the search options with the tie-break seed, the counters,
+// the path as shorts or ints, one byte per cursor and a CRC32. It is replaced atomically and deleted once
+// the search has finished.
+public class SearchCheckpoint {
+    private static final int MAGIC = 0x4B544350;    // "KTCP"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 10 * Integer.BYTES + 6 * Long.BYTES + 1;    // Board, options, seed, depth, counters, square width
+
+    Logger logger = Logger.getLogger(SearchCheckpoint.class.getName());
+
+    private final Path file;
+    private final long intervalMillis;
+    private final int size;
+    private final int columns;
+    private final int holes;                    // Hash of the squares cut out of the board
+    private final int squares;                  // Size of the square index space
+    private final int strategy;
+    private final int flags;                    // Closed tour, dead-end pruning and random tie-break bits
+    private final long seed;                    // Seed of the random tie-breaks, 0 without them
+    private final int connectivityInterval;
+    private final boolean resume;               // Continue from an existing file instead of replacing it
+    private final ScheduledExecutorService writer;
+    private volatile boolean due = false;
+    private Future<?> pending;                  // Write in progress, a due snapshot is skipped while it runs
+
+    long snapshots = 0;         // Snapshots written
+    long skipped = 0;           // Snapshots skipped because the previous write was still running
+    long snapshotNanos = 0;     // Time the search thread spent copying its state
+    volatile long writeNanos = 0;   // Time the background thread spent encoding and writing
+    volatile long bytes = 0;    // Size of the last snapshot
+    long elapsedMillis = 0;     // Search time of the earlier runs, restored from the file
+
+    // Search state read from a checkpoint file
+    static class State {
+        int depth;
+        int[] path;
+        byte[] cursor;
+        long expandedNodes;
+        long createdNodes;
+        long closurePruned;
+        long prunedBranches;
+        long elapsedMillis;
+    }
+
+    // Constructor to prepare the checkpoints of a search with the options of a problem
+    public SearchCheckpoint(Problem problem, TreeSearch.Strategy strategy) {
+        this.file = Paths.get(problem.checkpointFile);
+        this.intervalMillis = Math.max(1, problem.checkpointInterval) * 1000L;
+        this.size = problem.size;
+        this.columns = problem.columns();
+        this.holes = problem.isSquareBoard() || problem.holes == null ? 0 : problem.holes.hashCode();
+        this.squares = size * columns;
+        this.strategy = strategy.ordinal();
+        this.flags = (problem.closedTour ? 1 : 0) | (problem.pruneDeadEnds ? 2 : 0) | (problem.seed != null ? 4 : 0);
+        this.seed = problem.seed != null ? problem.seed : 0;
+        this.connectivityInterval = problem.connectivityInterval;
+        this.resume = problem.resume;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Method to start raising the snapshot flag at every interval
+    public void start() {
+        writer.scheduleAtFixedRate(() -> due = true, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Method to check if a snapshot should be taken, cheap enough to call for every node
+    public boolean due() {
+        return due;
+    }
+
+    // Method to snapshot the state at a depth, written in the background unless the search is stopping
+    public void save(int[] path, int[] cursor, int depth, long[] counters, long searchMillis, boolean wait) {
+        due = false;
+        if (!wait && pending != null && !pending.isDone()) {
+            skipped++;
+            return;
+        }
+        long start = System.nanoTime();
+        int[] pathCopy = new int[depth + 1];
+        byte[] cursorCopy = new byte[depth + 1];
+        System.arraycopy(path, 0, pathCopy, 0, depth + 1);
+        for (int i = 0; i <= depth; i++) {
+            cursorCopy[i] = (byte) cursor[i];
+        }
+        long[] countersCopy = counters.clone();
+        snapshotNanos += System.nanoTime() - start;
+        snapshots++;
+
+        pending = writer.submit(() -> write(pathCopy, cursorCopy, depth, countersCopy, elapsedMillis + searchMillis));
+        if (wait) {
+            try {
+                pending.get();
+            } catch (Exception e) {
+                logger.warning("Failed to write the checkpoint." + e);
+            }
+        }
+    }
+
+    // Method to encode and write a snapshot, replacing the previous one atomically
+    private void write(int[] path, byte[] cursor, int depth, long[] counters, long elapsed) {
+        long start = System.nanoTime();
+        int width = squares <= 1 << 16 ? Short.BYTES : Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (depth + 1) * (width + 1) + Long.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(columns).putInt(holes).putInt(path[0]).putInt(strategy).putInt(flags)
+                .putInt(connectivityInterval).putLong(seed).putInt(depth);
+        for (long counter : counters) {
+            buffer.putLong(counter);
+        }
+        buffer.putLong(elapsed).put((byte) width);
+        for (int square : path) {
+            if (width == Short.BYTES) {
+                buffer.putShort((short) square);
+            } else {
+                buffer.putInt(square);
+            }
+        }
+        buffer.put(cursor);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            logger.warning("Failed to write the checkpoint " + file + "." + e);
+            return;
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warning("Failed to replace the checkpoint " + file + "." + e);
+            return;
+        }
+        bytes = buffer.limit();
+        writeNanos += System.nanoTime() - start;
+    }
+
+    // Method to read the checkpoint of a search from a start square when resuming, returns null if there
+    // is none or it was written for other options
+    public State load(int start) {
+        if (!resume || !Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (IOException e) {
+            logger.warning("Failed to read the checkpoint " + file + "." + e);
+            return null;
+        }
+        if (buffer.remaining() < HEADER_BYTES + Long.BYTES) {
+            logger.warning("Ignoring the truncated checkpoint " + file);
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - Long.BYTES);
+        if (buffer.getLong(buffer.limit() - Long.BYTES) != crc.getValue()) {
+            logger.warning("Ignoring the corrupt checkpoint " + file);
+            return null;
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != size || buffer.getInt() != columns
+                || buffer.getInt() != holes || buffer.getInt() != start
+                || buffer.getInt() != strategy || buffer.getInt() != flags || buffer.getInt() != connectivityInterval
+                || buffer.getLong() != seed) {
+            logger.warning("Ignoring the checkpoint " + file + ", it was written for another search.");
+            return null;
+        }
+
+        State state = new State();
+        state.depth = buffer.getInt();
+        state.expandedNodes = buffer.getLong();
+        state.createdNodes = buffer.getLong();
+        state.closurePruned = buffer.getLong();
+        state.prunedBranches = buffer.getLong();
+        state.elapsedMillis = buffer.getLong();
+        int width = buffer.get();
+        if (state.depth < 0 || state.depth >= squares || (width != Short.BYTES && width != Integer.BYTES)
+                || buffer.limit() != HEADER_BYTES + (state.depth + 1) * (width + 1) + Long.BYTES) {
+            logger.warning("Ignoring the malformed checkpoint " + file);
+            return null;
+        }
+        state.path = new int[state.depth + 1];
+        for (int i = 0; i <= state.depth; i++) {
+            state.path[i] = width == Short.BYTES ? Short.toUnsignedInt(buffer.getShort()) : buffer.getInt();
+        }
+        state.cursor = new byte[state.depth + 1];
+        buffer.get(state.cursor);
+        elapsedMillis = state.elapsedMillis;
+        return state;
+    }
+
+    // Method to stop the timer and wait for the last write, the file is deleted once the search has finished
+    public void close(boolean finished) {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (finished) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warning("Failed to delete the checkpoint " + file + "." + e);
+            }
+        }
+        logger.info(String.format("Checkpoints    -> %,d written (%,d skipped), %,d bytes each, %.2f ms on the search thread, %.2f ms writing",
+                snapshots, skipped, bytes, snapshotNanos / 1e6, writeNanos / 1e6));
+    }
+}
@@ -0,0 +1,278 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Live statistics of the running searches, sampled by a background reporter.
+// Every search thread owns a probe with plain counters that only it writes, so recording an event
+// costs a few increments and no synchronization. The reporter sums the probes at a fixed interval,
+// logs a line, appends it to an optional CSV file and publishes the last sample through JMX.
+// Samples read the counters without synchronization and may lag the searches by a few events.
+// A probe is retired when its search ends: its counts are folded into the retired totals and it is
+// dropped, so the per-search thread pools of the parallel strategies do not grow the list of probes.
+public class SearchTelemetry implements SearchTelemetryMXBean {
+    static final int BUCKETS = 20;      // Depth histogram buckets, each covering 5% of the board
+    private static final String OBJECT_NAME = "KnightsTour:type=SearchTelemetry";
+
+    Logger logger = Logger.getLogger(SearchTelemetry.class.getName());
+
+    private final long intervalMillis;
+    private final String csvFile;
+    private final List<Probe> probes = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Probe> threadProbe = ThreadLocal.withInitial(this::register);
+    private final Sample retired = new Sample();   // Counts of the retired probes
+    private ScheduledExecutorService reporter;
+    private BufferedWriter csv;
+    private ObjectName objectName;
+    private long startNanos;
+
+    // Last sample, published to JMX
+    private volatile Sample sample = new Sample();
+
+    // Counters of one search thread, kept to a few stores per node: the node count, the maximum depth
+    // and the histogram are all derived from the per-depth counts when a sample is taken
+    static class Probe {
+        private final SearchTelemetry telemetry;
+        long[] depthCounts = new long[0];   // Nodes expanded at each depth
+        long backtracks;    // Positions left after all their moves failed
+        int depth;          // Depth of the position being searched
+        long frontier;      // Open nodes: frontier size, or the length of the move stack
+
+        Probe(SearchTelemetry telemetry) {
+            this.telemetry = telemetry;
+        }
+
+        // Method to record the expansion of a node at a depth with the current frontier size
+        void expanded(int depth, long frontier) {
+            depthCounts[depth]++;
+            this.depth = depth;
+            this.frontier = frontier;
+        }
+
+        // Method to record a backtrack
+        void backtracked() {
+            backtracks++;
+        }
+
+        // Method to mark the thread idle when its search ends and retire the probe, the thread gets a new
+        // one for its next search
+        void idle() {
+            depth = 0;
+            frontier = 0;
+            telemetry.retire(this);
+        }
+    }
+
+    // Sums of the probes at one moment
+    private static class Sample {
+        long nanos;
+        long nodes;
+        long backtracks;
+        int depth;
+        int maxDepth;
+        long frontier;
+        long[] histogram = new long[BUCKETS];
+        double nodesPerSecond;
+        double backtracksPerSecond;
+    }
+
+    // Constructor to initialize the telemetry with a reporting interval and an optional CSV file
+    public SearchTelemetry(long intervalMillis, String csvFile) {
+        this.intervalMillis = intervalMillis;
+        this.csvFile = csvFile;
+    }
+
+    // Method to get the probe of the calling thread, prepared for a board with the given number of squares
+    Probe probe(int squares) {
+        Probe probe = threadProbe.get();
+        if (probe.depthCounts.length < squares) {
+            probe.depthCounts = Arrays.copyOf(probe.depthCounts, squares);
+        }
+        return probe;
+    }
+
+    // Method to create and register the probe of a thread
+    private Probe register() {
+        Probe probe = new Probe(this);
+        probes.add(probe);
+        return probe;
+    }
+
+    // Method to fold the counts of the probe of the calling thread into the retired totals and drop it
+    private synchronized void retire(Probe probe) {
+        add(retired, probe);
+        probes.remove(probe);
+        threadProbe.remove();
+    }
+
+    // Method to add the node counts, the backtracks and the depth histogram of a probe to a sample
+    private static void add(Sample sample, Probe probe) {
+        long[] depthCounts = probe.depthCounts;
+        for (int depth = 0; depth < depthCounts.length; depth++) {
+            long count = depthCounts[depth];
+            if (count > 0) {
+                sample.nodes += count;
+                sample.maxDepth = Math.max(sample.maxDepth, depth);
+                sample.histogram[(int) ((long) depth * BUCKETS / depthCounts.length)] += count;
+            }
+        }
+        sample.backtracks += probe.backtracks;
+    }
+
+    // Method to start the reporter and register the JMX bean
+    public void start() {
+        startNanos = System.nanoTime();
+        sample.nanos = startNanos;
+        if (csvFile != null) {
+            try {
+                csv = Files.newBufferedWriter(Paths.get(csvFile));
+                csv.write("elapsed_ms,nodes,nodes_per_sec,backtracks,backtracks_per_sec,depth,max_depth,frontier");
+                for (int i = 0; i < BUCKETS; i++) {
+                    csv.write(",depth_" + (i * 100 / BUCKETS) + "pct");
+                }
+                csv.newLine();
+            } catch (IOException e) {
+                logger.warning("Failed to open the telemetry file " + csvFile + "." + e);
+                csv = null;
+            }
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            logger.warning("Failed to register the telemetry bean." + e);
+            objectName = null;
+        }
+
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Method to stop the reporter after a final report and release the CSV file and the JMX bean
+    public void stop() {
+        if (reporter == null) {
+            return;
+        }
+        reporter.shutdownNow();
+        try {
+            reporter.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reporter = null;
+        report();
+        if (csv != null) {
+            try {
+                csv.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close the telemetry file " + csvFile + "." + e);
+            }
+            csv = null;
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                logger.warning("Failed to unregister the telemetry bean." + e);
+            }
+            objectName = null;
+        }
+    }
+
+    // Method to take a sample of the probes, log it and append it to the CSV file
+    private synchronized void report() {
+        Sample previous = sample;
+        Sample current = new Sample();
+        current.nanos = System.nanoTime();
+        current.nodes = retired.nodes;
+        current.backtracks = retired.backtracks;
+        current.maxDepth = retired.maxDepth;
+        current.histogram = Arrays.copyOf(retired.histogram, BUCKETS);
+        for (Probe probe : probes) {
+            add(current, probe);
+            current.depth = Math.max(current.depth, probe.depth);
+            current.frontier += probe.frontier;
+        }
+        double seconds = Math.max(1, current.nanos - previous.nanos) / 1e9;
+        current.nodesPerSecond = (current.nodes - previous.nodes) / seconds;
+        current.backtracksPerSecond = (current.backtracks - previous.backtracks) / seconds;
+        sample = current;
+
+        long elapsedMillis = (current.nanos - startNanos) / 1_000_000;
+        logger.info(String.format("Telemetry      -> %,.0f nodes/s, %,.0f backtracks/s, depth %d (max %d), frontier %,d, %,d nodes",
+                current.nodesPerSecond, current.backtracksPerSecond, current.depth, current.maxDepth, current.frontier,
+                current.nodes));
+        if (csv != null) {
+            try {
+                csv.write(elapsedMillis + "," + current.nodes + "," + Math.round(current.nodesPerSecond) + ","
+                        + current.backtracks + "," + Math.round(current.backtracksPerSecond) + "," + current.depth + ","
+                        + current.maxDepth + "," + current.frontier);
+                for (long count : current.histogram) {
+                    csv.write("," + count);
+                }
+                csv.newLine();
+                csv.flush();
+            } catch (IOException e) {
+                logger.warning("Failed to write the telemetry file " + csvFile + "." + e);
+            }
+        }
+    }
+
+    @Override
+    public long getNodes() {
+        return sample.nodes;
+    }
+
+    @Override
+    public double getNodesPerSecond() {
+        return sample.nodesPerSecond;
+    }
+
+    @Override
+    public long getBacktracks() {
+        return sample.backtracks;
+    }
+
+    @Override
+    public double getBacktracksPerSecond() {
+        return sample.backtracksPerSecond;
+    }
+
+    @Override
+    public int getCurrentDepth() {
+        return sample.depth;
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return sample.maxDepth;
+    }
+
+    @Override
+    public long getFrontierSize() {
+        return sample.frontier;
+    }
+
+    @Override
+    public long[] getDepthHistogram() {
+        return Arrays.copyOf(sample.histogram, BUCKETS);
+    }
+}
@@ -0,0 +1,18 @@
+// Management interface of SearchTelemetry, the values of its last sample
+public interface SearchTelemetryMXBean {
+    long getNodes();
+
+    double getNodesPerSecond();
+
+    long getBacktracks();
+
+    double getBacktracksPerSecond();
+
+    int getCurrentDepth();
+
+    int getMaxDepth();
+
+    long getFrontierSize();
+
+    long[] getDepthHistogram();     // Expanded nodes by the share of the board covered, in 5% buckets
+}
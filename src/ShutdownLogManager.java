@@ -0,0 +1,39 @@
+import java.util.logging.LogManager;
+
+// Log manager that can keep its handlers while the JVM shuts down.
+// The default manager closes every handler from its own shutdown hook as soon as the shutdown starts,
+// so a search stopped by Ctrl+C could no longer log its statistics. While the handlers are held, the
+// reset of that hook is put off until they are released. Main installs it through the
+// java.util.logging.manager property before the first logger is created.
+public class ShutdownLogManager extends LogManager {
+    private boolean held = false;
+    private boolean resetPending = false;
+
+    // Method to keep the handlers open through a shutdown until release is called
+    synchronized void hold() {
+        held = true;
+    }
+
+    // Method to stop holding the handlers, and to close them if a reset was put off meanwhile
+    void release() {
+        synchronized (this) {
+            held = false;
+            if (!resetPending) {
+                return;
+            }
+            resetPending = false;
+        }
+        super.reset();
+    }
+
+    @Override
+    public void reset() {
+        synchronized (this) {
+            if (held) {
+                resetPending = true;
+                return;
+            }
+        }
+        super.reset();
+    }
+}
@@ -0,0 +1,379 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+// Embedded HTTP service that answers solve requests from one long running JVM.
+// GET /solve?size=8&x=1&y=1&strategy=DFS_H2&timeout=10 returns the tour as JSON, or as big-endian
+// (x, y) int pairs with format=binary. Requests for the same board, start, strategy and
+// tour type that arrive while such a search is running wait for that search instead of starting
+// their own, if its time limit ends no earlier than theirs. A request that allows more time starts
+// its own search, and later requests wait for that one. At most maxSolves searches run at once, up to
+// maxQueued more wait for a free slot and further requests are turned away with 503. Boards larger than
+// maxSize are refused with 400. GET /metrics reports the counters and the latency percentiles of the
+// recent requests.
+public class SolveServer {
+    private static final int HANDLER_THREADS = 64;     // Threads serving connections, most of them wait on a search
+    private static final int LATENCY_SAMPLES = 10_000; // Latencies kept for the percentiles
+    private static final int DEFAULT_TIMEOUT_SECONDS = 60;
+
+    Logger logger = Logger.getLogger(SolveServer.class.getName());
+
+    private final Problem options;      // Engine options shared by every request
+    private final InetAddress address;  // Interface to listen on
+    private final int port;
+    private final int maxSolves;
+    private final int maxQueued;
+    private final int maxSize;          // Largest board size a request may ask for
+    private final Map<String, Search> inFlight = new ConcurrentHashMap<>();  // Latest search of every request key
+    private final Set<Problem> running = ConcurrentHashMap.newKeySet();    // Searches being run, stopped by stop
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+    private ExecutorService handlers;
+    private ThreadPoolExecutor solvers;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final long[] latencies = new long[LATENCY_SAMPLES];    // Ring of the latest latencies in nanoseconds
+    private long latencyCount = 0;
+
+    // Outcome of one search, shared by every request coalesced onto it
+    private static class Result {
+        String status;
+        int size;
+        int startX;
+        int startY;
+        TreeSearch.Strategy strategy;
+        int[][] path;           // (x, y) of every square of the tour, null when none was found
+        long expandedNodes;
+        long elapsedMillis;
+    }
+
+    // Search that requests for the same key can wait for, until the end of its time limit
+    private static class Search {
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        final long deadlineMillis;      // Time the limit of the search ends, in milliseconds since the epoch
+
+        Search(long deadlineMillis) {
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+
+    // Constructor to initialize the server with the engine options, the address, the port and the admission limits
+    public SolveServer(Problem options, InetAddress address, int port, int maxSolves, int maxQueued, int maxSize) {
+        this.options = options;
+        this.address = address;
+        this.port = port;
+        this.maxSolves = Math.max(1, maxSolves);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    // Method to start listening, returns the bound port
+    public int start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        handlers = Executors.newFixedThreadPool(HANDLER_THREADS);
+        solvers = new ThreadPoolExecutor(maxSolves, maxSolves, 0, TimeUnit.MILLISECONDS,
+                maxQueued > 0 ? new ArrayBlockingQueue<>(maxQueued) : new SynchronousQueue<>());
+        server.setExecutor(handlers);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/metrics", this::handleMetrics);
+        server.start();
+        int bound = server.getAddress().getPort();
+        logger.info("Serving on " + address.getHostAddress() + " port " + bound + ", " + maxSolves + " concurrent searches, "
+                + maxQueued + " queued");
+        return bound;
+    }
+
+    // Method to block until the server is stopped
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    // Method to stop accepting requests and cancel the running searches
+    public void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        for (Problem problem : running) {
+            problem.deadline().cancel();
+        }
+        solvers.shutdownNow();
+        handlers.shutdownNow();
+        logger.info("Server stopped, " + metricsJson());
+        stopped.countDown();
+    }
+
+    // Method to answer a solve request
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        requests.incrementAndGet();
+        try {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            Problem problem;
+            TreeSearch.Strategy strategy;
+            long timeoutMillis;
+            try {
+                strategy = BatchRunner.parseStrategy(query.getOrDefault("strategy", "DFS_H2"));
+                problem = options.copyOptions();
+                problem.size = Integer.parseInt(query.getOrDefault("size", "0"));
+                problem.startX = Integer.parseInt(query.getOrDefault("x", "1"));
+                problem.startY = Integer.parseInt(query.getOrDefault("y", "1"));
+                problem.closedTour = parseFlag("closed", query.getOrDefault("closed", String.valueOf(options.closedTour)));
+                timeoutMillis = Math.round(Double.parseDouble(query.getOrDefault("timeout",
+                        String.valueOf(DEFAULT_TIMEOUT_SECONDS))) * 1000);
+            } catch (IllegalArgumentException e) {
+                sendJson(exchange, 400, error("invalid parameter: " + e.getMessage()));
+                return;
+            }
+            if (problem.size <= 0 || problem.startX < 1 || problem.startX > problem.size || problem.startY < 1
+                    || problem.startY > problem.size || timeoutMillis <= 0) {
+                sendJson(exchange, 400, error("size, x, y and timeout must be positive and the start on the board"));
+                return;
+            }
+            if (problem.size > maxSize) {
+                sendJson(exchange, 400, error("size must be at most " + maxSize));
+                return;
+            }
+            if (strategy == TreeSearch.Strategy.DIVIDE_AND_CONQUER) {
+                sendJson(exchange, 400, error("the divide and conquer construction streams its tour to a file and is not served"));
+                return;
+            }
+            boolean binary = "binary".equals(query.get("format"));
+
+            // Join the running search for the same request if it runs at least as long as this one allows,
+            // or start a new one if a slot or queue entry is free
+            String key = problem.size + "," + problem.startX + "," + problem.startY + "," + strategy + "," + problem.closedTour;
+            long now = System.currentTimeMillis();
+            Search created = new Search(now + timeoutMillis);
+            Search search = inFlight.compute(key, (k, current) ->
+                    current != null && current.deadlineMillis >= created.deadlineMillis ? current : created);
+            if (search == created) {
+                problem.timeLimitMillis = timeoutMillis;
+                problem.startTime = now;    // Time spent queued counts against the limit
+                try {
+                    solvers.execute(() -> run(key, problem, strategy, created));
+                } catch (RejectedExecutionException e) {
+                    // Requests that joined in the meantime get the same answer instead of waiting for their timeout
+                    Result result = newResult(problem, strategy);
+                    result.status = "rejected";
+                    inFlight.remove(key, created);
+                    created.future.complete(result);
+                    rejected.incrementAndGet();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendJson(exchange, 503, error("too many searches, " + maxSolves + " running and " + maxQueued + " queued"));
+                    return;
+                }
+            } else {
+                coalesced.incrementAndGet();
+            }
+
+            Result result;
+            try {
+                result = search.future.get(timeoutMillis + 1000, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                sendJson(exchange, 504, error("no result within the timeout"));
+                return;
+            } catch (ExecutionException | InterruptedException e) {
+                failed.incrementAndGet();
+                sendJson(exchange, 500, error("search failed: " + e.getCause()));
+                return;
+            }
+            int code = switch (result.status) {
+                case "found" -> 200;
+                case "no solution" -> 404;
+                case "timeout" -> 504;
+                default -> 503;
+            };
+            if ("rejected".equals(result.status)) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            if (binary && result.path != null) {
+                ByteBuffer buffer = ByteBuffer.allocate(result.path.length * 2 * Integer.BYTES);
+                for (int[] square : result.path) {
+                    buffer.putInt(square[0]).putInt(square[1]);
+                }
+                exchange.getResponseHeaders().set("X-Nodes-Expanded", String.valueOf(result.expandedNodes));
+                send(exchange, code, "application/octet-stream", buffer.array());
+            } else {
+                sendJson(exchange, code, toJson(result));
+            }
+        } finally {
+            recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    // Method to run one search and complete the requests waiting for it
+    private void run(String key, Problem problem, TreeSearch.Strategy strategy, Search pending) {
+        searches.incrementAndGet();
+        Result result = newResult(problem, strategy);
+        problem.pathFile = null;    // The tour is returned to the client instead of written to a file
+        long begin = System.nanoTime();
+        running.add(problem);
+        try {
+            TreeSearch search = new TreeSearch(problem);
+            boolean found = search.solve(problem, strategy);
+            result.status = found ? "found" : problem.deadline().cancelled() ? "cancelled" : search.timedOut ? "timeout" : "no solution";
+            if (found) {
+                result.path = new int[search.tour.length][];
+                for (int i = 0; i < search.tour.length; i++) {
+                    result.path[i] = new int[]{search.topology.x(search.tour[i]), search.topology.y(search.tour[i])};
+                }
+            }
+        } catch (OutOfMemoryError e) {
+            result.status = "out of memory";
+        } catch (RuntimeException e) {
+            logger.warning("Search " + key + " failed: " + e);
+            result.status = "error";
+        } finally {
+            running.remove(problem);
+            problem.deadline().close();
+            inFlight.remove(key, pending);
+        }
+        result.expandedNodes = problem.expandedNodes;
+        result.elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+        logger.info("Solve " + result.size + "x" + result.size + " from (" + result.startX + ", " + result.startY + "), "
+                + strategy + ": " + result.status + " in " + result.elapsedMillis + " ms, "
+                + String.format("%,d", result.expandedNodes) + " nodes expanded");
+        pending.future.complete(result);
+    }
+
+    // Method to create the result of a search for a request, before its status is known
+    private static Result newResult(Problem problem, TreeSearch.Strategy strategy) {
+        Result result = new Result();
+        result.size = problem.size;
+        result.startX = problem.startX;
+        result.startY = problem.startY;
+        result.strategy = strategy;
+        return result;
+    }
+
+    // Method to answer a metrics request
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        sendJson(exchange, 200, metricsJson());
+    }
+
+    // Method to describe the counters and the latency percentiles as JSON
+    private String metricsJson() {
+        long[] samples;
+        synchronized (latencies) {
+            samples = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_SAMPLES));
+        }
+        Arrays.sort(samples);
+        return String.format(Locale.ROOT, "{\"requests\":%d,\"searches\":%d,\"coalesced\":%d,\"rejected\":%d,\"failed\":%d,"
+                        + "\"running\":%d,\"queued\":%d,\"latency_ms\":{\"samples\":%d,\"p50\":%.3f,\"p90\":%.3f,"
+                        + "\"p99\":%.3f,\"max\":%.3f}}",
+                requests.get(), searches.get(), coalesced.get(), rejected.get(), failed.get(),
+                solvers.getActiveCount(), solvers.getQueue().size(), samples.length,
+                percentile(samples, 0.50), percentile(samples, 0.90), percentile(samples, 0.99), percentile(samples, 1.0));
+    }
+
+    // Method to record the latency of a request in the ring of samples
+    private void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] = nanos;
+        }
+    }
+
+    // Method to get a percentile of sorted latencies in milliseconds, by the nearest rank
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    // Method to describe a search result as JSON
+    private static String toJson(Result result) {
+        StringBuilder json = new StringBuilder(64 + (result.path != null ? result.path.length * 10 : 0));
+        json.append("{\"status\":\"").append(result.status).append('"')
+                .append(",\"size\":").append(result.size)
+                .append(",\"start\":[").append(result.startX).append(',').append(result.startY).append(']')
+                .append(",\"strategy\":\"").append(result.strategy).append('"')
+                .append(",\"nodes_expanded\":").append(result.expandedNodes)
+                .append(",\"elapsed_ms\":").append(result.elapsedMillis);
+        if (result.path != null) {
+            json.append(",\"path\":[");
+            for (int i = 0; i < result.path.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append('[').append(result.path[i][0]).append(',').append(result.path[i][1]).append(']');
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    // Method to describe an error as JSON
+    private static String error(String message) {
+        return "{\"status\":\"error\",\"message\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    // Method to parse a boolean parameter, only true, false, 1 and 0 are accepted
+    private static boolean parseFlag(String name, String value) {
+        return switch (value) {
+            case "true", "1" -> true;
+            case "false", "0" -> false;
+            default -> throw new IllegalArgumentException(name + " must be true or false, not \"" + value + "\"");
+        };
+    }
+
+    // Method to split a raw query string into decoded parameters
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals >= 0 ? pair.substring(0, equals) : pair, StandardCharsets.UTF_8);
+            String value = equals >= 0 ? URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8) : "";
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    // Method to send a JSON response
+    private static void sendJson(HttpExchange exchange, int code, String json) throws IOException {
+        send(exchange, code, "application/json", json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Method to send a response body with its status code
+    private static void send(HttpExchange exchange, int code, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+// Breadth-first search that keeps its frontier on disk instead of on the heap.
+// Every BFS layer is written to memory-mapped segment files in a scratch directory while the
+// previous layer is read back sequentially, so only one segment of each layer is mapped at a time.
+// A record is the visited bitmap, the index of its parent in the previous layer and the current square.
+public class SpillingBreadthFirstSearch {
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    Logger logger = Logger.getLogger(SpillingBreadthFirstSearch.class.getName());
+    Problem problem;
+
+    private final BoardTopology topology;
+    private final int words;                // Bitmap words per record
+    private final int recordBytes;          // Bytes per record
+    private final long recordsPerSegment;   // Records per segment file
+    private Path directory;                 // Scratch directory holding the segment files
+
+    int[] path;         // Square indices of the tour when a solution is found
+    int pathLength;     // Number of squares in the path when a solution is found
+    boolean timedOut;   // Whether the search stopped because of the time limit
+
+    // Constructor to initialize the search with a problem instance
+    public SpillingBreadthFirstSearch(Problem problem) {
+        this.problem = problem;
+        this.topology = BoardTopology.of(problem);
+        this.words = (topology.squares + 63) >>> 6;
+        this.recordBytes = words * Long.BYTES + Long.BYTES + Integer.BYTES;
+        this.recordsPerSegment = SEGMENT_BYTES / recordBytes;
+    }
+
+    // Method to run the search, returns true if a tour was found
+    public boolean search() {
+        int goalDepth = topology.tourLength - 1;
+        Deadline deadline = problem.deadline();
+        long[] current = new long[words];
+        SearchTelemetry.Probe probe = problem.telemetry != null ? problem.telemetry.probe(topology.squares) : null;
+
+        try {
+            directory = Files.createTempDirectory(Paths.get(problem.spillDirectory), "bfs-spill-");
+
+            // Write the root layer
+            int start = topology.square(problem.startX, problem.startY);
+            current[start >>> 6] |= 1L << start;
+            LayerWriter root = new LayerWriter(0);
+            root.append(current, -1, start);
+            root.close();
+
+            for (int depth = 0; ; depth++) {
+                long layerSize = problem.layerSizes.get(depth);
+                if (layerSize == 0) {
+                    logger.info("No solution exists.");
+                    return false;
+                }
+                // Every record in the last layer is a complete tour
+                if (depth == goalDepth) {
+                    problem.expandedNodes++;
+                    reconstructPath(depth);
+                    return true;
+                }
+
+                LayerReader reader = new LayerReader(depth, layerSize);
+                LayerWriter writer = new LayerWriter(depth + 1);
+                for (long index = 0; index < layerSize; index++) {
+                    // Check for timeout
+                    if (deadline.expired()) {
+                        logger.warning(deadline.message());
+                        timedOut = true;
+                        return false;
+                    }
+                    int from = reader.next(current);
+                    problem.expandedNodes++;
+                    long created = problem.createdNodes;
+                    if (probe != null) {
+                        probe.expanded(depth, layerSize - index);
+                    }
+
+                    // Expand the record into the next layer
+                    for (int i = topology.offsets[from]; i < topology.offsets[from + 1]; i++) {
+                        int square = topology.neighbors[i];
+                        if ((current[square >>> 6] & (1L << square)) == 0) {
+                            current[square >>> 6] |= 1L << square;
+                            writer.append(current, index, square);
+                            current[square >>> 6] &= ~(1L << square);
+                            problem.createdNodes++;
+                        }
+                    }
+                    if (probe != null && problem.createdNodes == created) {
+                        probe.backtracked();
+                    }
+                }
+                writer.close();
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to spill the frontier to disk." + e);
+            return false;
+        } finally {
+            if (probe != null) {
+                probe.idle();
+            }
+            deleteSegments();
+        }
+    }
+
+    // Method to rebuild the path by following the parent indices back through the layer files
+    private void reconstructPath(int depth) throws IOException {
+        long begin = System.nanoTime();
+        path = new int[depth + 1];
+        pathLength = depth + 1;
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        long index = 0;
+        for (int layer = depth; layer >= 0; layer--) {
+            try (FileChannel channel = FileChannel.open(segmentFile(layer, index / recordsPerSegment))) {
+                record.clear();
+                channel.read(record, (index % recordsPerSegment) * recordBytes);
+            }
+            path[layer] = record.getInt(words * Long.BYTES + Long.BYTES);
+            index = record.getLong(words * Long.BYTES);
+            problem.bytesRead += recordBytes;
+        }
+        problem.spillNanos += System.nanoTime() - begin;
+    }
+
+    // Method to get the file of a segment of a layer
+    private Path segmentFile(int layer, long segment) {
+        return directory.resolve(String.format("layer-%05d-%06d.seg", layer, segment));
+    }
+
+    // Method to remove the scratch directory and every segment in it
+    private void deleteSegments() {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            logger.warning("Failed to delete the spill directory " + directory + "." + e);
+        }
+    }
+
+    // Sequential writer of a layer, mapping one segment file at a time
+    private class LayerWriter {
+        private final int layer;
+        private long segment = -1;
+        private long count = 0;
+        private MappedByteBuffer buffer;
+
+        LayerWriter(int layer) {
+            this.layer = layer;
+        }
+
+        void append(long[] state, long parent, int square) throws IOException {
+            if (count % recordsPerSegment == 0) {
+                nextSegment();
+            }
+            for (long word : state) {
+                buffer.putLong(word);
+            }
+            buffer.putLong(parent);
+            buffer.putInt(square);
+            count++;
+            problem.bytesSpilled += recordBytes;
+        }
+
+        // Method to write the full segment back to its file and map the next one, timed as spill I/O
+        private void nextSegment() throws IOException {
+            long begin = System.nanoTime();
+            if (buffer != null) {
+                buffer.force();
+            }
+            segment++;
+            long remaining = recordsPerSegment * recordBytes;
+            try (FileChannel channel = FileChannel.open(segmentFile(layer, segment),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, remaining);
+            }
+            problem.spillNanos += System.nanoTime() - begin;
+        }
+
+        void close() {
+            if (buffer != null) {
+                long begin = System.nanoTime();
+                buffer.force();
+                buffer = null;
+                problem.spillNanos += System.nanoTime() - begin;
+            }
+            problem.layerSizes.add(count);
+            logger.info("BFS layer " + layer + ": " + String.format("%,d", count) + " nodes spilled");
+        }
+    }
+
+    // Sequential reader of a layer, mapping one segment file at a time
+    private class LayerReader {
+        private final int layer;
+        private final long size;
+        private long segment = -1;
+        private long count = 0;
+        private MappedByteBuffer buffer;
+
+        LayerReader(int layer, long size) {
+            this.layer = layer;
+            this.size = size;
+        }
+
+        // Method to read the next record, mapping the next segment and loading it from its file when the
+        // current one is used up. Only the map and the load are timed as spill I/O, the records are then
+        // read from memory.
+        int next(long[] state) throws IOException {
+            if (count % recordsPerSegment == 0) {
+                long begin = System.nanoTime();
+                segment++;
+                long records = Math.min(recordsPerSegment, size - count);
+                try (FileChannel channel = FileChannel.open(segmentFile(layer, segment), StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, records * recordBytes);
+                }
+                buffer.load();
+                problem.spillNanos += System.nanoTime() - begin;
+            }
+            for (int i = 0; i < state.length; i++) {
+                state[i] = buffer.getLong();
+            }
+            buffer.getLong();   // Parent index, only needed for path reconstruction
+            count++;
+            problem.bytesRead += recordBytes;
+            return buffer.getInt();
+        }
+    }
+}
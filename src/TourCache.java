@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Persistent cache of solved tours, one small binary file per entry in a cache directory.
+// Requests are canonicalized under the eight board symmetries, so the tour stored for one start square
+// serves every square of its orbit. The cache holds at most a fixed number of entries and evicts the least
+// recently used one; the order survives restarts through the modification time of the files.
+// Every entry is checked when it is loaded, a corrupt or invalid one is deleted and counted as a miss.
+public class TourCache {
+    private static final int MAGIC = 0x4B544331;    // "KTC1"
+    private static final int HEADER_BYTES = 14;     // Magic, board size, start square, closed flag, square width
+    private static final Map<String, TourCache> caches = new ConcurrentHashMap<>();
+
+    Logger logger = Logger.getLogger(TourCache.class.getName());
+
+    private final Path directory;
+    private final int capacity;
+    private final LinkedHashMap<String, Path> entries = new LinkedHashMap<>(16, 0.75f, true);   // In LRU order
+    long hits = 0;
+    long misses = 0;
+    long evictions = 0;
+    long rejected = 0;      // Entries dropped because they were corrupt or not a valid tour
+
+    // Constructor to open a cache directory and index the entries already stored in it
+    private TourCache(Path directory, int capacity) throws IOException {
+        this.directory = directory;
+        this.capacity = Math.max(1, capacity);
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.tour")) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(TourCache::lastModified));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            entries.put(name.substring(0, name.length() - ".tour".length()), file);
+        }
+        evict();
+    }
+
+    // Method to get the shared cache of a directory, a cache that cannot be opened is reported and skipped
+    public static TourCache open(String directory, int capacity) {
+        return caches.computeIfAbsent(Paths.get(directory).toAbsolutePath().normalize().toString(), key -> {
+            try {
+                return new TourCache(Paths.get(key), capacity);
+            } catch (IOException e) {
+                Logger.getLogger(TourCache.class.getName()).warning("Failed to open the tour cache " + key + "." + e);
+                return null;
+            }
+        });
+    }
+
+    // Method to look up a tour from a start square, returns null on a miss
+    public synchronized int[] lookup(int size, int start, boolean closed) {
+        BoardSymmetry symmetry = new BoardSymmetry(size);
+        int canonical = symmetry.canonical(start);
+        String key = key(size, canonical, closed);
+        Path file = entries.get(key);
+        if (file == null) {
+            misses++;
+            return null;
+        }
+
+        int[] tour = read(file, size, canonical, closed);
+        if (tour == null) {
+            logger.warning("Dropping invalid cache entry " + file);
+            remove(key);
+            rejected++;
+            misses++;
+            return null;
+        }
+        touch(file);
+        hits++;
+        return symmetry.apply(symmetry.fromCanonical(start), tour, tour.length);
+    }
+
+    // Method to store a tour that begins on its start square
+    public synchronized void store(int size, int[] tour, boolean closed) {
+        BoardSymmetry symmetry = new BoardSymmetry(size);
+        int canonical = symmetry.canonical(tour[0]);
+        String key = key(size, canonical, closed);
+        if (entries.containsKey(key)) {
+            return;
+        }
+
+        int[] stored = symmetry.apply(BoardSymmetry.inverse(symmetry.fromCanonical(tour[0])), tour, tour.length);
+        Path file = directory.resolve(key + ".tour");
+        try {
+            write(file, size, stored, closed);
+        } catch (IOException e) {
+            logger.warning("Failed to store the tour in the cache." + e);
+            return;
+        }
+        entries.put(key, file);
+        evict();
+    }
+
+    // Method to describe the counters of the cache
+    public synchronized String statistics() {
+        return String.format("%,d hits, %,d misses, %,d evictions, %,d rejected, %,d entries", hits, misses, evictions,
+                rejected, entries.size());
+    }
+
+    // Method to get the name of the entry of a canonical request
+    private static String key(int size, int canonical, boolean closed) {
+        return size + "-" + canonical + (closed ? "-closed" : "-open");
+    }
+
+    // Method to remove the least recently used entries beyond the capacity
+    private void evict() {
+        Iterator<Map.Entry<String, Path>> iterator = entries.entrySet().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            Path file = iterator.next().getValue();
+            iterator.remove();
+            delete(file);
+            evictions++;
+        }
+    }
+
+    // Method to remove an entry and its file
+    private void remove(String key) {
+        Path file = entries.remove(key);
+        if (file != null) {
+            delete(file);
+        }
+    }
+
+    // Method to write an entry: header, the squares as shorts when they fit or ints, and a CRC32 of both
+    private static void write(Path file, int size, int[] tour, boolean closed) throws IOException {
+        int width = tour.length <= 1 << 16 ? Short.BYTES : Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + tour.length * width + Long.BYTES);
+        buffer.putInt(MAGIC).putInt(size).putInt(tour[0]).put((byte) (closed ? 1 : 0)).put((byte) width);
+        for (int square : tour) {
+            if (width == Short.BYTES) {
+                buffer.putShort((short) square);
+            } else {
+                buffer.putInt(square);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        // Write to a temporary file first so that a crash never leaves a half written entry
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Method to read and check an entry, returns null if it is corrupt or not a tour for the request
+    private static int[] read(Path file, int size, int start, boolean closed) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (IOException e) {
+            return null;
+        }
+        int squares = size * size;
+        if (buffer.remaining() < HEADER_BYTES + Long.BYTES) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - Long.BYTES);
+        if (buffer.getLong(buffer.limit() - Long.BYTES) != crc.getValue()) {
+            return null;
+        }
+        int width = buffer.get(HEADER_BYTES - 1);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != size || buffer.getInt() != start
+                || buffer.get() != (closed ? 1 : 0) || (width != Short.BYTES && width != Integer.BYTES)
+                || buffer.limit() != HEADER_BYTES + squares * width + Long.BYTES) {
+            return null;
+        }
+        buffer.get();
+
+        int[] tour = new int[squares];
+        for (int i = 0; i < squares; i++) {
+            tour[i] = width == Short.BYTES ? Short.toUnsignedInt(buffer.getShort()) : buffer.getInt();
+        }
+        if (tour[0] != start || !TourValidator.validate(size, tour, squares)) {
+            return null;
+        }
+        // A closed tour has to end a knight move away from its start
+        int dx = Math.abs(tour[0] / size - tour[squares - 1] / size);
+        int dy = Math.abs(tour[0] % size - tour[squares - 1] % size);
+        return closed && dx * dy != 2 ? null : tour;
+    }
+
+    // Method to mark an entry as recently used, also for the next run
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.warning("Failed to update the cache entry " + file + "." + e);
+        }
+    }
+
+    // Method to delete an entry file
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warning("Failed to delete the cache entry " + file + "." + e);
+        }
+    }
+
+    // Method to get the modification time of a file, used to restore the LRU order
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+// Enumeration of every tour from a start square, for counting the tours of small boards.
+// The top of the search tree is split into disjoint subtrees that are explored concurrently on a
+// ForkJoinPool, like ParallelSearch, but an engine that completes a tour records it and backtracks
+// instead of stopping. Every worker thread owns a BacktrackingSearch engine with its own long counters,
+// they are added up when the pool is done. Found tours can be streamed to a file, one tour per line in
+// the layout of path.txt; each worker collects its lines in a buffer and appends it in large chunks.
+// On larger boards the time limit stops the enumeration and the count is a lower bound.
+public class TourEnumerator {
+    private static final int SPLIT_DEPTH = 4;       // Depth at which subtrees are enumerated sequentially
+    private static final int FLUSH_CHARS = 1 << 16; // Buffered characters of a worker before they are written
+
+    Logger logger = Logger.getLogger(TourEnumerator.class.getName());
+    Problem problem;
+    TreeSearch.Strategy strategy;
+
+    private final int workers;
+    private final BoardTopology topology;
+    private final List<Worker> allWorkers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Worker> threadWorker;
+    private Writer output;      // Shared tours file, null when the tours are only counted
+
+    long tours = 0;             // Tours found over every worker
+    volatile boolean timedOut;  // Whether the enumeration stopped before the whole tree was explored
+
+    // Engine and output buffer of one worker thread
+    private class Worker implements BacktrackingSearch.TourListener {
+        final BacktrackingSearch engine = new BacktrackingSearch(problem, strategy);
+        final StringBuilder lines = new StringBuilder();
+
+        @Override
+        public void tourFound(int[] path, int length) {
+            if (output == null) {
+                return;
+            }
+            lines.append('[');
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    lines.append(", ");
+                }
+                lines.append('(').append(topology.x(path[i])).append(',').append(topology.y(path[i])).append(')');
+            }
+            lines.append("]\n");
+            if (lines.length() >= FLUSH_CHARS) {
+                flush();
+            }
+        }
+
+        // Method to append the buffered tours to the shared file
+        void flush() {
+            synchronized (output) {
+                try {
+                    output.append(lines);
+                } catch (IOException e) {
+                    logger.warning("Failed to write the tours." + e);
+                }
+            }
+            lines.setLength(0);
+        }
+    }
+
+    // Constructor to initialize the enumeration with a problem instance, a move ordering strategy and
+    // the number of threads
+    public TourEnumerator(Problem problem, TreeSearch.Strategy strategy, int workers) {
+        this.problem = problem;
+        this.strategy = strategy;
+        this.workers = Math.max(1, workers);
+        this.topology = BoardTopology.of(problem);
+        this.threadWorker = ThreadLocal.withInitial(() -> {
+            Worker worker = new Worker();
+            worker.engine.listener = worker;
+            worker.engine.quiet = true;
+            allWorkers.add(worker);
+            return worker;
+        });
+    }
+
+    // Method to enumerate the tours, streaming them to a file if one is given, returns the number found
+    public long enumerate(String toursFile) {
+        if (strategy != TreeSearch.Strategy.DFS && strategy != TreeSearch.Strategy.DFS_H1B
+                && strategy != TreeSearch.Strategy.DFS_H2 && strategy != TreeSearch.Strategy.DFS_H3) {
+            logger.warning("Tour enumeration supports the DFS, DFS_H1B, DFS_H2 and DFS_H3 strategies.");
+            return 0;
+        }
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try (BufferedWriter writer = toursFile != null ? Files.newBufferedWriter(Paths.get(toursFile)) : null) {
+            output = writer;
+            int[] root = {topology.square(problem.startX, problem.startY)};
+            pool.invoke(new SubtreeTask(root));
+            for (Worker worker : allWorkers) {
+                tours += worker.engine.tours;
+                if (writer != null) {
+                    worker.flush();
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to write the tours to " + toursFile + "." + e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (timedOut) {
+            logger.warning(problem.deadline().message());
+        }
+        logger.info(String.format("%s%,d tours from (%d, %d) on %d threads, %,.0f tours/s, %,.0f nodes/s",
+                timedOut ? "At least " : "", tours, problem.startX, problem.startY, workers, tours / seconds,
+                problem.expandedNodes / seconds) + (toursFile != null ? ", written to " + toursFile : ""));
+        return tours;
+    }
+
+    // Task enumerating the subtree below a path prefix
+    private class SubtreeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] prefix;
+
+        SubtreeTask(int[] prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected void compute() {
+            if (problem.deadline().expired()) {
+                timedOut = true;
+                return;
+            }
+            Worker worker = threadWorker.get();
+
+            // Split the subtree into one task per child until the split depth is reached
+            if (prefix.length <= SPLIT_DEPTH && prefix.length < topology.tourLength) {
+                int[] children = new int[8];
+                int count = worker.engine.orderedMoves(prefix, prefix.length, children);
+                List<SubtreeTask> tasks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int[] child = Arrays.copyOf(prefix, prefix.length + 1);
+                    child[prefix.length] = children[i];
+                    tasks.add(new SubtreeTask(child));
+                }
+                invokeAll(tasks);
+                return;
+            }
+            worker.engine.search(prefix, prefix.length);
+            if (worker.engine.timedOut) {
+                timedOut = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+// Versioned binary tour file, the path.bin the solver writes by default.
+// The layout is big-endian like the other binary files of the project:
+//   magic "KTUR", version byte, flags byte (1: closed tour, 2: a hole bitmap follows the header),
+//   width byte (bytes per square: 1, 2 or 4), a zero byte, then rows, columns and the number of
+//   squares of the path as ints; the hole bitmap of rows * columns bits, bit i in byte i / 8 from the
+//   lowest bit up, when flagged; then the square index (x - 1) * columns + (y - 1) of every square of
+//   the path, unsigned, in the smallest width that holds every index of the board.
+// Reading maps the file, so a tour is validated in one linear pass without parsing any text.
+public class TourFile {
+    static final int MAGIC = 0x4B545552;    // "KTUR"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 20;
+    static final int CLOSED = 1;
+    static final int HOLES = 2;
+    private static final long MAP_BYTES = 1L << 30;    // Largest window mapped at once
+
+    final Path file;
+    final int version;
+    final int rows;
+    final int columns;
+    final int width;        // Bytes per square index
+    final int length;       // Squares of the path
+    final boolean closed;
+    final BitSet holes;     // Squares that are not part of the board, empty for a full rectangle
+    private final long dataOffset;
+
+    private TourFile(Path file, int version, int rows, int columns, int width, int length, boolean closed,
+                     BitSet holes, long dataOffset) {
+        this.file = file;
+        this.version = version;
+        this.rows = rows;
+        this.columns = columns;
+        this.width = width;
+        this.length = length;
+        this.closed = closed;
+        this.holes = holes;
+        this.dataOffset = dataOffset;
+    }
+
+    // Method to get the smallest width in bytes that holds every square index of a board
+    static int widthOf(long squares) {
+        return squares <= 1 << 8 ? 1 : squares <= 1 << 16 ? 2 : 4;
+    }
+
+    // Method to encode the header and the hole bitmap of a tour of a board
+    static ByteBuffer header(BoardTopology topology, boolean closed, int length) {
+        byte[] bitmap = topology.holes.isEmpty() ? new byte[0]
+                : Arrays.copyOf(topology.holes.toByteArray(), (topology.squares + 7) / 8);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + bitmap.length);
+        header.putInt(MAGIC)
+                .put((byte) VERSION)
+                .put((byte) ((closed ? CLOSED : 0) | (bitmap.length > 0 ? HOLES : 0)))
+                .put((byte) widthOf(topology.squares))
+                .put((byte) 0)
+                .putInt(topology.rows)
+                .putInt(topology.columns)
+                .putInt(length)
+                .put(bitmap);
+        return header.flip();
+    }
+
+    // Method to read the header of a tour file, throws an IOException if it is not a valid tour file
+    static TourFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (size < HEADER_BYTES || channel.read(header, 0) < HEADER_BYTES) {
+                throw new IOException(file + " is too short for a tour file");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a tour file");
+            }
+            int version = header.get() & 0xFF;
+            int flags = header.get() & 0xFF;
+            int width = header.get() & 0xFF;
+            header.get();
+            int rows = header.getInt();
+            int columns = header.getInt();
+            int length = header.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(file + " has tour file version " + version + ", this build reads up to " + VERSION);
+            }
+            if (rows <= 0 || columns <= 0 || length < 0 || width != widthOf((long) rows * columns)) {
+                throw new IOException(file + " has an invalid header: " + rows + "x" + columns + ", "
+                        + length + " squares of " + width + " bytes");
+            }
+
+            BitSet holes = new BitSet();
+            long offset = HEADER_BYTES;
+            if ((flags & HOLES) != 0) {
+                int bitmapBytes = (int) (((long) rows * columns + 7) / 8);
+                ByteBuffer bitmap = ByteBuffer.allocate(bitmapBytes);
+                if (size < offset + bitmapBytes || channel.read(bitmap, offset) < bitmapBytes) {
+                    throw new IOException(file + " ends inside the hole bitmap");
+                }
+                holes = BitSet.valueOf(bitmap.array());
+                offset += bitmapBytes;
+            }
+            if (size != offset + (long) length * width) {
+                throw new IOException(file + " holds " + (size - offset) + " bytes of squares, expected "
+                        + (long) length * width);
+            }
+            return new TourFile(file, version, rows, columns, width, length, (flags & CLOSED) != 0, holes, offset);
+        }
+    }
+
+    // Method to feed every square of the path to a consumer, mapping the file in windows of whole squares
+    void forEach(IntConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = dataOffset + (long) length * width;
+            long window = MAP_BYTES / width * width;
+            for (long position = dataOffset; position < end; position += window) {
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(window, end - position));
+                switch (width) {
+                    case 1 -> {
+                        while (data.hasRemaining()) {
+                            consumer.accept(data.get() & 0xFF);
+                        }
+                    }
+                    case 2 -> {
+                        while (data.hasRemaining()) {
+                            consumer.accept(data.getShort() & 0xFFFF);
+                        }
+                    }
+                    default -> {
+                        while (data.hasRemaining()) {
+                            consumer.accept(data.getInt());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Method to check in one pass that the path is a tour of the board, and a closed one if it is flagged
+    TourValidator validate() throws IOException {
+        TourValidator validator = new TourValidator(rows, columns, holes);
+        forEach(validator);
+        if (closed) {
+            validator.requireClosed();
+        }
+        return validator;
+    }
+
+    // Method to describe the board and the path of the file
+    String describe() {
+        return rows + "x" + columns + (holes.isEmpty() ? "" : " with " + holes.cardinality() + " holes") + ", "
+                + (closed ? "closed" : "open") + " path of " + String.format("%,d", length) + " squares, "
+                + width + "-byte squares, version " + version;
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+// Streaming check that a sequence of square indices is a knight's tour of a board.
+// Squares are fed one at a time, so a tour can be validated while it is being produced.
+// The board is a rectangle of rows x columns squares, optionally with holes a tour must not visit.
+public class TourValidator implements IntConsumer {
+    private final int rows;
+    private final int columns;
+    private final BitSet holes;     // Squares that are not part of the board, empty for a full rectangle
+    private final int tourLength;   // Number of squares a tour visits
+    private final BitSet visited;
+    private int first = -1;
+    private int previous = -1;
+    private int count = 0;
+    private String error;
+
+    // Constructor to initialize the validator for a board size
+    public TourValidator(int size) {
+        this(size, size, new BitSet());
+    }
+
+    // Constructor to initialize the validator for a rectangular board with holes
+    public TourValidator(int rows, int columns, BitSet holes) {
+        this.rows = rows;
+        this.columns = columns;
+        this.holes = holes;
+        this.tourLength = rows * columns - holes.cardinality();
+        this.visited = new BitSet(rows * columns);
+    }
+
+    // Constructor to initialize the validator for the board of a topology
+    public TourValidator(BoardTopology topology) {
+        this(topology.rows, topology.columns, topology.holes);
+    }
+
+    // Method to check the next square of the tour
+    @Override
+    public void accept(int square) {
+        if (error != null) {
+            return;
+        }
+        if (square < 0 || square >= rows * columns) {
+            error = "square " + square + " is outside the board";
+        } else if (holes.get(square)) {
+            error = "square (" + (square / columns + 1) + "," + (square % columns + 1) + ") is a hole";
+        } else if (visited.get(square)) {
+            error = "square (" + (square / columns + 1) + "," + (square % columns + 1) + ") is visited twice";
+        } else if (previous >= 0 && !isKnightMove(previous, square)) {
+            error = "move " + count + " is not a knight move";
+        }
+        visited.set(square);
+        if (first < 0) {
+            first = square;
+        }
+        previous = square;
+        count++;
+    }
+
+    // Method to check if two squares are a knight move apart
+    private boolean isKnightMove(int from, int to) {
+        int dx = Math.abs(from / columns - to / columns);
+        int dy = Math.abs(from % columns - to % columns);
+        return dx * dy == 2;
+    }
+
+    // Method to also require the last square of the tour to be a knight move from the first
+    public void requireClosed() {
+        if (error == null && count == tourLength && count > 1 && !isKnightMove(previous, first)) {
+            error = "the last square is not a knight move from the first, the tour is not closed";
+        }
+    }
+
+    // Method to check if every square was visited exactly once with legal knight moves
+    public boolean isValid() {
+        return error == null && count == tourLength;
+    }
+
+    // Method to describe why the tour is invalid
+    public String getError() {
+        if (error == null && count != tourLength) {
+            return "only " + count + " of " + tourLength + " squares are visited";
+        }
+        return error;
+    }
+
+    // Method to validate a complete tour
+    public static boolean validate(int size, int[] path, int length) {
+        TourValidator validator = new TourValidator(size);
+        for (int i = 0; i < length; i++) {
+            validator.accept(path[i]);
+        }
+        return validator.isValid();
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.SplittableRandom;
+
+// Fixed-size table of the search states proven to have no tour below them, for the DFS strategies of TreeSearch.
+// A state is the set of visited squares with the square of the knight. Different move orders reach the same
+// state, and without the table the search proves it dead again every time. States are hashed with Zobrist
+// keys: a random long per square for the visited set, XORed in and out as squares are visited and released,
+// and another one per square for the knight.
+// The table is a single long[] of buckets of four entries, indexed by the low bits of the hash. An entry keeps
+// the hash above its low 16 bits and, in those 16 bits, the number of nodes expanded to prove the state dead,
+// saturated at 65535. With 2^16 buckets or more (a budget of 2 MB), the index and the stored bits cover the
+// whole 64-bit hash. A full bucket evicts its cheapest proof, so the table keeps the states that are the most
+// expensive to prove again within its memory budget.
+public class TranspositionTable {
+    static final int BUCKET = 4;
+    private static final long VALUE_MASK = 0xFFFF;
+    private static final long SEED = 0x4B6E69676874L;  // Fixed, so that runs with the same table size are reproducible
+
+    final long[] squareKeys;    // Zobrist keys of the visited squares
+    final long[] headKeys;      // Zobrist keys of the square of the knight
+    private final long[] entries;
+    private final int bucketMask;
+
+    long probes = 0;
+    long hits = 0;
+    long stores = 0;
+    long evictions = 0;
+    long occupied = 0;
+    long savedNodes = 0;        // Nodes the hits did not expand again, a lower bound since the proofs saturate
+
+    // Constructor to create a table that fits in a memory budget, for a board with a number of squares
+    public TranspositionTable(long budgetBytes, int squares) {
+        long slots = Long.highestOneBit(Math.max(BUCKET, Math.min(1L << 30, budgetBytes / Long.BYTES)));
+        this.entries = new long[(int) slots];
+        this.bucketMask = (int) (slots / BUCKET - 1);
+        this.squareKeys = new long[squares];
+        this.headKeys = new long[squares];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int square = 0; square < squares; square++) {
+            squareKeys[square] = random.nextLong();
+            headKeys[square] = random.nextLong();
+        }
+    }
+
+    // Method to check if a state is proven dead
+    boolean isDead(long hash) {
+        probes++;
+        long tag = tagOf(hash);
+        int base = ((int) hash & bucketMask) * BUCKET;
+        for (int i = base; i < base + BUCKET; i++) {
+            if ((entries[i] & ~VALUE_MASK) == tag) {
+                hits++;
+                savedNodes += entries[i] & VALUE_MASK;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Method to record a state proven dead by expanding a number of nodes. A dead-end that expanded
+    // only itself is not stored, the table would not make proving it again any cheaper.
+    void store(long hash, long nodes) {
+        if (nodes < 2) {
+            return;
+        }
+        stores++;
+        long tag = tagOf(hash);
+        long value = Math.min(nodes, VALUE_MASK);
+        int base = ((int) hash & bucketMask) * BUCKET;
+        int cheapest = base;
+        for (int i = base; i < base + BUCKET; i++) {
+            long entry = entries[i];
+            if (entry == 0) {
+                entries[i] = tag | value;
+                occupied++;
+                return;
+            }
+            if ((entry & ~VALUE_MASK) == tag) {
+                entries[i] = tag | Math.max(value, entry & VALUE_MASK);
+                return;
+            }
+            if ((entry & VALUE_MASK) < (entries[cheapest] & VALUE_MASK)) {
+                cheapest = i;
+            }
+        }
+        entries[cheapest] = tag | value;
+        evictions++;
+    }
+
+    // Method to get the stored bits of a hash, never 0 since 0 marks an empty entry
+    private static long tagOf(long hash) {
+        long tag = hash & ~VALUE_MASK;
+        return tag != 0 ? tag : VALUE_MASK + 1;
+    }
+
+    // Method to summarize the hit rate, the occupancy and the nodes saved
+    String statistics() {
+        return String.format("%,d hits of %,d probes (%.1f%%), %,d stored, %,d evicted, occupancy %.1f%% of %,d entries (%d MB), at least %,d nodes saved",
+                hits, probes, 100.0 * hits / Math.max(1, probes), stores, evictions, 100.0 * occupied / entries.length,
+                entries.length, (long) entries.length * Long.BYTES >> 20, savedNodes);
+    }
+}
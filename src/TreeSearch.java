@@ -1,24 +1,40 @@
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
 import java.util.logging.Logger;
 
-public class TreeSearch {
+public class TreeSearch implements MoveScorer.Board {
     Logger logger = Logger.getLogger(TreeSearch.class.getName());
     Problem problem;
+    BoardTopology topology;
+    private int tourStart = -1;     // Square a closed tour is rotated to begin on when printed, -1 for open tours
+    private int[] queue;            // Flood fill queue and visit marks of the connectivity check
+    private int[] seen;
+    private int mark = 0;
+    SearchArena arena;              // Nodes of the search tree of the BFS and DFS strategies
+    private boolean[] board;        // Squares on the path of the current node
+    private int current = -1;       // Node the board is on, -1 for the empty board
+    private int[] replay;           // Nodes whose squares are replayed when the board moves
+    private TranspositionTable transpositions;  // Proven-dead states of the DFS strategies, null when off
+    private long hash;              // Zobrist hash of the squares on the board, kept when the table is on
+    private long[] entered;         // Expanded node count when the DFS entered the node at each depth of its path
+    private final int[] keys = new int[8];  // Heuristic sort keys of the children being ordered
+    boolean timedOut;               // Whether the last solve stopped because of the time limit
+    private TourCache cache;        // Cache of solved tours, null when it is not configured
+    int[] tour;                     // Squares of the last tour written, from the requested start; not kept for divide and conquer
 
     // Enum for different search strategies
     public enum Strategy {
         BFS,        // Breadth-First Search
         DFS,        // Depth-First Search (No heuristic)
         DFS_H1B,    // Depth-First Search with Warnsdorff's method heuristic
-        DFS_H2      // Depth-First Search with improved heuristic
+        DFS_H2,     // Depth-First Search with improved heuristic
+        PORTFOLIO,  // Race of several heuristic Depth-First Search configurations
+        DIVIDE_AND_CONQUER, // Construction by stitching tours of small blocks, for very large boards
+        DFS_H3      // Depth-First Search with Warnsdorff's method and a two-move lookahead tie-break
     }
 
     // Possible knight moves in a chessboard
-    private final int[][] directions = new int[][]{
+    static final int[][] directions = new int[][]{
             {1, 2},
             {2, 1},
             {2, -1},
@@ -32,157 +48,563 @@ public class TreeSearch {
     // Constructor to initialize the TreeSearch with a problem instance
     public TreeSearch(Problem problem) {
         this.problem = problem;
+        this.topology = BoardTopology.of(problem);
     }
 
-    // Method to solve the problem using the specified strategy
-    public void solve(Problem problem, Strategy strategy) {
-        // Initialize the frontier with the root node
-        Deque<Node> frontier = new ArrayDeque<>();
-        Node root = new Node(problem.startX, problem.startY, null, new BitSet(problem.size * problem.size), 0);
-        setState(root.state, problem.startX, problem.startY);
-        frontier.add(root);
-
-        // Search until the frontier is empty
-        while (!frontier.isEmpty()) {
-            // Check for timeout
-            if (System.currentTimeMillis() - problem.startTime > problem.timeLimit * 60 * 1000L) {
-                logger.warning("Timeout: Search exceeded the time limit of " + problem.timeLimit + " minutes.");
-                return;
+    // Method to solve the problem using the specified strategy, returns true if a tour was found
+    public boolean solve(Problem problem, Strategy strategy) {
+        // Serve the tour from the cache when the same request, up to a board symmetry, was solved before;
+        // the cache only knows square boards
+        if (problem.cacheDirectory != null && !problem.isSquareBoard()) {
+            logger.warning("The tour cache only supports full square boards, it is not used for this board.");
+        } else if (problem.cacheDirectory != null) {
+            cache = TourCache.open(problem.cacheDirectory, problem.cacheCapacity);
+            int[] cached = cache == null ? null
+                    : cache.lookup(problem.size, topology.square(problem.startX, problem.startY), problem.closedTour);
+            if (cached != null) {
+                writeTour(cached, 0, cached.length);
+                logger.info("Solution found in the cache!");
+                return true;
+            }
+        }
+        if (problem.closedTour) {
+            // A knight alternates colors, so a tour returning to its start needs an even number of squares
+            if (topology.tourLength % 2 == 1) {
+                logger.info("No closed tour exists on a board with an odd number of squares.");
+                return false;
+            }
+            if (strategy == Strategy.DIVIDE_AND_CONQUER) {
+                logger.warning("Closed tours are not supported by the divide and conquer construction.");
+                return false;
             }
 
-            Node selectedNode = null;
-            // Select the current node based on the search strategy
-            switch (strategy) {
-                case BFS -> selectedNode = frontier.pollFirst();                 // Select the first node in the queue
-                case DFS, DFS_H1B, DFS_H2 -> selectedNode = frontier.pollLast(); // Select the last node in the stack
+            // A closed tour can be rotated to begin on any of its squares, so it is searched from the center
+            // of the board, where the start square has the most neighbors to return through, and rotated
+            // back to the requested start square when it is printed; the requested start is kept when the
+            // center is a hole
+            int startX = problem.startX;
+            int startY = problem.startY;
+            tourStart = topology.square(startX, startY);
+            if (topology.isPlayable(topology.square((problem.size + 1) / 2, (problem.columns() + 1) / 2))) {
+                problem.startX = (problem.size + 1) / 2;
+                problem.startY = (problem.columns() + 1) / 2;
             }
-            assert selectedNode != null;
-            problem.expandedNodes++;
+            try {
+                return search(problem, strategy);
+            } finally {
+                problem.startX = startX;
+                problem.startY = startY;
+            }
+        }
+        return search(problem, strategy);
+    }
 
-            // Check if the current node is the goal
-            if (isGoalState(selectedNode)) {
-                printPath(selectedNode);
+    // Method to check if the BFS has to use the node frontier, the packed frontiers do not apply
+    // the closed tour constraint or the pruning checks
+    static boolean needsNodeFrontier(Problem problem) {
+        return problem.closedTour || problem.pruneDeadEnds || problem.connectivityInterval > 0;
+    }
+
+    // Method to search for a tour from the start square of the problem
+    private boolean search(Problem problem, Strategy strategy) {
+        // Build the tour block by block, validating it while it is streamed to the output files
+        if (strategy == Strategy.DIVIDE_AND_CONQUER) {
+            if (!problem.isSquareBoard()) {
+                logger.warning("The divide and conquer construction only supports full square boards.");
+                return false;
+            }
+            DivideAndConquerTour construction = new DivideAndConquerTour(problem);
+            TourValidator validator = new TourValidator(problem.size);
+            PathWriter writer = openPathWriter();
+            boolean built = construction.construct(square -> {
+                validator.accept(square);
+                if (writer != null) {
+                    writer.accept(square);
+                }
+            });
+            if (built && validator.isValid()) {
+                if (writer != null) {
+                    writer.close();
+                }
+                logger.info("Solution found and validated!");
+                return true;
+            }
+            if (writer != null) {
+                writer.discard();
+            }
+            timedOut = construction.timedOut;
+            if (built) {
+                logger.warning("Constructed tour is invalid: " + validator.getError());
+            } else if (construction.impossible) {
+                logger.info("No solution exists.");
+            } else if (!timedOut) {
+                logger.warning("The divide and conquer construction found no tour, one may still exist.");
+            }
+            return false;
+        }
+        // Race the portfolio of heuristic configurations
+        if (strategy == Strategy.PORTFOLIO) {
+            PortfolioSearch search = new PortfolioSearch(problem);
+            if (search.search()) {
+                printPath(search.path, search.pathLength);
+                logger.info("Solution found by " + search.winner + "!");
+                return true;
+            }
+            timedOut = search.timedOut;
+            if (!timedOut) {
+                logger.info("No solution exists.");
+            }
+            return false;
+        }
+        // Restart the depth-first strategies with new random tie-breaks when a backtrack budget is spent
+        if (problem.restartSchedule != null && strategy != Strategy.BFS) {
+            RestartSearch search = new RestartSearch(problem, strategy);
+            if (search.search()) {
+                printPath(search.path, search.pathLength);
+                logger.info("Solution found on attempt " + search.attempts + " with seed " + search.winningSeed + "!");
+                return true;
+            }
+            timedOut = search.timedOut;
+            if (!timedOut) {
+                logger.info("No solution exists.");
+            }
+            return false;
+        }
+        // Split the depth-first strategies across several threads if requested
+        if (problem.threads > 1 && strategy != Strategy.BFS) {
+            ParallelSearch search = new ParallelSearch(problem, strategy);
+            if (search.search()) {
+                printPath(search.path, search.pathLength);
                 logger.info("Solution found!");
-                return;
+                return true;
+            }
+            timedOut = search.timedOut;
+            if (!timedOut) {
+                logger.info("No solution exists.");
+            }
+            return false;
+        }
+        // Use the in-place backtracking engine for the depth-first strategies if requested, it is also
+        // the engine that can be checkpointed
+        if ((problem.inPlace || problem.checkpointFile != null) && strategy != Strategy.BFS) {
+            BacktrackingSearch search = new BacktrackingSearch(problem, strategy);
+            search.seed = problem.seed;
+            if (problem.checkpointFile != null) {
+                search.checkpoint = new SearchCheckpoint(problem, strategy);
+                search.checkpoint.start();
+            }
+            boolean found = false;
+            try {
+                found = search.search();
+            } finally {
+                if (search.checkpoint != null) {
+                    search.checkpoint.close(found || !search.timedOut);
+                }
             }
+            if (found) {
+                printPath(search.path, search.pathLength);
+                logger.info("Solution found!");
+                return true;
+            }
+            timedOut = search.timedOut;
+            if (!timedOut) {
+                logger.info("No solution exists.");
+            }
+            return false;
+        }
+        // Spill the BFS layers to disk if a scratch directory is configured
+        if (problem.spillDirectory != null && strategy == Strategy.BFS && !needsNodeFrontier(problem)) {
+            SpillingBreadthFirstSearch search = new SpillingBreadthFirstSearch(problem);
+            if (search.search()) {
+                printPath(search.path, search.pathLength);
+                logger.info("Solution found!");
+                return true;
+            }
+            timedOut = search.timedOut;
+            return false;
+        }
+        // Use the packed frontier encoding for BFS if requested
+        if (problem.compactFrontier && strategy == Strategy.BFS && !needsNodeFrontier(problem)) {
+            CompactBreadthFirstSearch search = new CompactBreadthFirstSearch(problem);
+            if (search.search()) {
+                printPath(search.path, search.pathLength);
+                logger.info("Solution found!");
+                return true;
+            }
+            timedOut = search.timedOut;
+            return false;
+        }
+
+        // Initialize the arena with the root node, the board holds the squares of the root
+        arena = new SearchArena(1024);
+        board = new boolean[topology.squares];
+        replay = new int[topology.tourLength];
+        current = -1;
+        hash = 0;
+        transpositions = usesTranspositionTable(problem, strategy)
+                ? new TranspositionTable(problem.transpositionMegabytes << 20, topology.squares) : null;
+        entered = transpositions != null ? new long[topology.tourLength] : null;
+        arena.add(topology.square(problem.startX, problem.startY), -1, 0);
+        int head = 0;   // Next node of the BFS frontier
+        SearchTelemetry.Probe probe = problem.telemetry != null ? problem.telemetry.probe(topology.squares) : null;
+        Deadline deadline = problem.deadline();
+
+        try {
+            // Search until the frontier is empty
+            while (true) {
+                // Check for timeout
+                if (deadline.expired()) {
+                    logger.warning(deadline.message());
+                    timedOut = true;
+                    return false;
+                }
+
+                int selected;
+                long frontier;
+                // Select the current node based on the search strategy
+                if (strategy == Strategy.BFS) {
+                    // Select the first node in the queue
+                    if (head == arena.size()) {
+                        break;
+                    }
+                    selected = head++;
+                    frontier = arena.size() - head;
+                } else {
+                    // Select the last node in the stack, after dropping the finished nodes above it
+                    while (arena.size() > 0 && arena.size() - 1 == current) {
+                        if (transpositions != null) {
+                            // No tour was found below the node, so its state is proven dead
+                            transpositions.store(stateHash(current), problem.expandedNodes - entered[arena.depth(current)]);
+                        }
+                        moveTo(arena.parent(current));
+                        arena.truncate(arena.size() - 1);
+                    }
+                    if (arena.size() == 0) {
+                        break;
+                    }
+                    selected = arena.size() - 1;
+                    frontier = selected - arena.depth(selected);
+                }
+                moveTo(selected);
+                if (transpositions != null) {
+                    // Skip a state proven dead on another path, the node is dropped as finished next
+                    entered[arena.depth(selected)] = problem.expandedNodes;
+                    if (transpositions.isDead(stateHash(selected))) {
+                        continue;
+                    }
+                }
+                problem.expandedNodes++;
+                if (probe != null) {
+                    probe.expanded(arena.depth(selected), frontier);
+                }
 
-            // Expand the selected node and add its children to the frontier
-            List<Node> children = expand(selectedNode, strategy);
-            frontier.addAll(children);
+                // Check if the current node is the goal
+                if (isGoalState(selected)) {
+                    int[] path = arena.path(selected);
+                    printPath(path, path.length);
+                    logger.info("Solution found!");
+                    return true;
+                }
+
+                // Expand the selected node and add its children to the frontier
+                int children = expand(selected, strategy);
+                if (probe != null && children == 0) {
+                    probe.backtracked();
+                }
+            }
+
+            logger.info("No solution exists.");
+            return false;
+        } finally {
+            if (probe != null) {
+                probe.idle();
+            }
+            if (transpositions != null) {
+                logger.info("Transposition  -> " + transpositions.statistics());
+            }
         }
+    }
 
-        logger.info("No solution exists.");
+    // Method to check if a search runs on the node engine with a transposition table: the DFS strategies
+    // on the node frontier, when a memory budget for the table is set
+    static boolean usesTranspositionTable(Problem problem, Strategy strategy) {
+        boolean depthFirst = strategy == Strategy.DFS || strategy == Strategy.DFS_H1B || strategy == Strategy.DFS_H2
+                || strategy == Strategy.DFS_H3;
+        return problem.transpositionMegabytes > 0 && depthFirst && problem.restartSchedule == null
+                && problem.threads <= 1 && !problem.inPlace && problem.checkpointFile == null;
     }
 
+    // Method to check if a solve of a strategy runs on the in-place engine and writes the requested checkpoints,
+    // the restarts, the parallel split and the other strategies do not
+    static boolean usesCheckpoint(Problem problem, Strategy strategy) {
+        boolean depthFirst = strategy == Strategy.DFS || strategy == Strategy.DFS_H1B || strategy == Strategy.DFS_H2
+                || strategy == Strategy.DFS_H3;
+        return problem.checkpointFile != null && depthFirst && problem.restartSchedule == null && problem.threads <= 1;
+    }
+
+    // Method to get the hash of the state of the node the board is on: its visited squares and the knight
+    private long stateHash(int node) {
+        return hash ^ transpositions.headKeys[arena.square(node)];
+    }
 
-    // Method to expand a node and generate its children based on the strategy
-    private List<Node> expand(Node node, Strategy strategy) {
-        List<Node> possibleMoves = new ArrayList<>();
+    // Method to put a square on the board or take it off, keeping the hash of the board
+    private void setSquare(int square, boolean visited) {
+        board[square] = visited;
+        if (transpositions != null) {
+            hash ^= transpositions.squareKeys[square];
+        }
+    }
+
+    // Method to move the board from the current node to another one, -1 for the empty board. The squares
+    // of the current path below the common ancestor are undone and those of the new path replayed.
+    void moveTo(int node) {
+        int from = current;
+        int to = node;
+        int depth = node >= 0 ? arena.depth(node) : -1;
+        while (from >= 0 && arena.depth(from) > depth) {
+            setSquare(arena.square(from), false);
+            from = arena.parent(from);
+        }
+        int count = 0;
+        while (to >= 0 && (from < 0 || arena.depth(to) > arena.depth(from))) {
+            replay[count++] = to;
+            to = arena.parent(to);
+        }
+        while (from != to) {
+            setSquare(arena.square(from), false);
+            from = arena.parent(from);
+            replay[count++] = to;
+            to = arena.parent(to);
+        }
+        while (count > 0) {
+            setSquare(arena.square(replay[--count]), true);
+        }
+        current = node;
+    }
+
+    // Method to load a path as a chain of nodes into a fresh arena and move the board to its last node,
+    // returns the handle of that node
+    int load(int[] path, int length) {
+        if (arena == null) {
+            arena = new SearchArena(1024);
+            board = new boolean[topology.squares];
+            replay = new int[topology.tourLength];
+        }
+        arena.clear();
+        Arrays.fill(board, false);
+        hash = 0;
+        current = -1;
+        int node = -1;
+        for (int depth = 0; depth < length; depth++) {
+            node = arena.add(path[depth], node, depth);
+        }
+        moveTo(node);
+        return node;
+    }
+
+    // Method to expand the node the board is on and append its children to the arena, ordered by the
+    // strategy so that the stack pops the best one first; returns the number of children
+    int expand(int node, Strategy strategy) {
+        int from = arena.square(node);
+        int depth = arena.depth(node) + 1;
+        int first = arena.size();
 
         // Try all possible moves from the current node
-        for (int[] direction : directions) {
-            int x = node.x + direction[0];
-            int y = node.y + direction[1];
+        boolean last = depth == topology.tourLength - 1;
+        int returnSquares = problem.closedTour ? countReturnSquares() : 0;
+        for (int i = topology.offsets[from]; i < topology.offsets[from + 1]; i++) {
+            int square = topology.neighbors[i];
 
             // Check if the move is valid
-            if (isValidMove(node.state, x, y)) {
-                BitSet newState = (BitSet) node.state.clone();
-                setState(newState, x, y);
-                possibleMoves.add(new Node(x, y, node, newState, node.depth + 1));
+            if (!board[square]) {
+                // A closed tour needs an unvisited neighbor of the start square until the last move,
+                // and the last move has to land on one
+                if (problem.closedTour && (last ? !isReturnSquare(square) : isReturnSquare(square) && returnSquares == 1)) {
+                    problem.closurePruned++;
+                    continue;
+                }
+                // Drop the child if the rest of the board can no longer be covered
+                board[square] = true;
+                boolean doomed = !last && isDoomed(from, square, depth);
+                board[square] = false;
+                if (doomed) {
+                    problem.prunedBranches++;
+                    continue;
+                }
+                arena.add(square, node, depth);
                 problem.createdNodes++;
             }
         }
 
-        // Sort moves based on the selected heuristic
-        switch (strategy) {
-            case BFS, DFS -> {
-                return possibleMoves; // No sorting needed for BFS and DFS
-            }
-            case DFS_H1B -> {
-                possibleMoves.sort(Comparator.comparingInt(this::countPossibleMoves).reversed());
-                return possibleMoves;
-            }
-            case DFS_H2 -> {
-                possibleMoves.sort((Comparator.comparingInt(this::countPossibleMoves)
-                        .thenComparing(this::compareDistanceToCorners)).reversed()
-                );
-                return possibleMoves;
+        // Sort moves based on the selected heuristic, by descending scores as the best move is popped last
+        int count = arena.size() - first;
+        MoveScorer scorer = MoveScorer.of(strategy);
+        if (scorer != null) {
+            for (int i = 0; i < count; i++) {
+                keys[i] = scorer.score(topology, this, arena.square(first + i));
             }
+            arena.sortDescending(first, first + count, keys);
         }
-        return possibleMoves;
+        return count;
     }
 
-    // Method to compare the distance of two nodes to the nearest corner
-    private int compareDistanceToCorners(Node a, Node b) {
-        // Define corner coordinates
-        int[][] corners = {
-                {1, 1},                       // bottom-left corner
-                {1, problem.size},            // bottom-right corner
-                {problem.size, 1},            // top-left corner
-                {problem.size, problem.size}  // top-right corner
-        };
+    // Method to check if the board with the knight on the head square can no longer become a tour
+    private boolean isDoomed(int from, int head, int depth) {
+        if (problem.pruneDeadEnds && hasDeadEnd(from, head)) {
+            return true;
+        }
+        int interval = problem.connectivityInterval;
+        return interval > 0 && depth % interval == 0 && !isConnected(head, depth);
+    }
 
-        // Calculate minimum Manhattan distance to any corner
-        int minDistanceA = Integer.MAX_VALUE;
-        int minDistanceB = Integer.MAX_VALUE;
+    // Method to check for unvisited squares that can no longer be entered and left. A square whose only
+    // way in or out is left can only be the last square of the tour, so two of them are a dead-end too.
+    // Only the neighbors of the previous and the new square changed, so only they are checked.
+    private boolean hasDeadEnd(int from, int head) {
+        int forcedEnds = 0;
+        for (int i = topology.offsets[head]; i < topology.offsets[head + 1]; i++) {
+            int square = topology.neighbors[i];
+            // The new square is still a way into its neighbors
+            if (!board[square] && countUnvisitedNeighbors(square) == 0 && ++forcedEnds > 1) {
+                return true;
+            }
+        }
+        for (int i = topology.offsets[from]; i < topology.offsets[from + 1]; i++) {
+            int square = topology.neighbors[i];
+            if (!board[square]) {
+                int exits = countUnvisitedNeighbors(square);
+                if (exits == 0 || exits == 1 && ++forcedEnds > 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 
-        for (int[] corner : corners) {
-            int distanceA = Math.abs(a.x - corner[0]) + Math.abs(a.y - corner[1]);
-            int distanceB = Math.abs(b.x - corner[0]) + Math.abs(b.y - corner[1]);
+    // Method to count the unvisited neighbors of a square
+    private int countUnvisitedNeighbors(int square) {
+        int count = 0;
+        for (int i = topology.offsets[square]; i < topology.offsets[square + 1]; i++) {
+            if (!board[topology.neighbors[i]]) {
+                count++;
+            }
+        }
+        return count;
+    }
 
-            minDistanceA = Math.min(minDistanceA, distanceA);
-            minDistanceB = Math.min(minDistanceB, distanceB);
+    // Method to check if every unvisited square can still be reached from the head square
+    private boolean isConnected(int head, int depth) {
+        if (queue == null) {
+            queue = new int[topology.squares];
+            seen = new int[topology.squares];
         }
+        mark++;
+        int tail = 0;
+        queue[tail++] = head;
+        for (int index = 0; index < tail; index++) {
+            int square = queue[index];
+            for (int i = topology.offsets[square]; i < topology.offsets[square + 1]; i++) {
+                int next = topology.neighbors[i];
+                if (!board[next] && seen[next] != mark) {
+                    seen[next] = mark;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return tail - 1 == topology.tourLength - 1 - depth;
+    }
 
-        return Integer.compare(minDistanceA, minDistanceB);
+    // Method to compare the distance of two squares to the nearest corner
+    int compareDistanceToCorners(int a, int b) {
+        return Integer.compare(topology.cornerDistance[a], topology.cornerDistance[b]);
     }
 
-    // Method to count the number of possible moves from a node
-    private int countPossibleMoves(Node node) {
-        int count = 0;
-        for (int[] direction : directions) {
-            int x = node.x + direction[0];
-            int y = node.y + direction[1];
-            if (isValidMove(node.state, x, y)) {
+    // Method to count the number of possible moves from a square on the board.
+    // For closed tours the start square still counts as a move, so that the heuristic
+    // does not use up the squares the tour has to return through.
+    int countPossibleMoves(int square) {
+        int count = problem.closedTour && isReturnSquare(square) ? 1 : 0;
+        for (int i = topology.offsets[square]; i < topology.offsets[square + 1]; i++) {
+            if (!board[topology.neighbors[i]]) {
                 count++;
             }
         }
         return count;
     }
 
-    // Method to check if a move is valid
-    private boolean isValidMove(BitSet state, int x, int y) {
-        return x >= 1 && x <= problem.size
-                && y >= 1 && y <= problem.size
-                && !state.get((x - 1) * problem.size + (y - 1));
+    // Methods to expose the board to the move scorers
+    @Override
+    public int exits(int square) {
+        return countPossibleMoves(square);
+    }
+
+    @Override
+    public boolean isVisited(int square) {
+        return board[square];
+    }
+
+    // Method to check if a node is the goal state
+    private boolean isGoalState(int node) {
+        if (problem.closedTour && !isReturnSquare(arena.square(node))) {
+            return false;
+        }
+        return arena.depth(node) == topology.tourLength - 1;
+    }
+
+    // Method to check if a square is a knight move away from the start square
+    private boolean isReturnSquare(int square) {
+        int dx = Math.abs(topology.x(square) - problem.startX);
+        int dy = Math.abs(topology.y(square) - problem.startY);
+        return dx * dy == 2;
     }
 
-    // Method to check if the current node is the goal state
-    private boolean isGoalState(Node selectedNode) {
-        return selectedNode.depth == problem.size * problem.size - 1;
+    // Method to count the unvisited neighbors of the start square on the board
+    private int countReturnSquares() {
+        int start = topology.square(problem.startX, problem.startY);
+        int count = 0;
+        for (int i = topology.offsets[start]; i < topology.offsets[start + 1]; i++) {
+            if (!board[topology.neighbors[i]]) {
+                count++;
+            }
+        }
+        return count;
     }
 
-    // Method to set the state of a node
-    private void setState(BitSet state, int x, int y) {
-        state.set((x - 1) * problem.size + (y - 1));
+    // Method to print a path given as a sequence of square indices and add it to the cache
+    void printPath(int[] squares, int length) {
+        int offset = 0;
+        while (tourStart >= 0 && squares[offset] != tourStart) {
+            offset++;
+        }
+        writeTour(squares, offset, length);
+        if (cache != null && length == topology.tourLength) {
+            cache.store(problem.size, tour, problem.closedTour);
+        }
     }
 
-    // Method to print the path from the start node to the goal node
-    private void printPath(Node node) {
-        File file = new File("path.txt");
-        List<String> pathList = new ArrayList<>();
-        // Reconstruct the path from the start node to the goal node
-        while (node != null) {
-            pathList.addFirst(node.toString());
-            node = node.parent;
+    // Method to write a path to the path files, beginning at the given offset of the sequence
+    private void writeTour(int[] squares, int offset, int length) {
+        tour = new int[length];
+        for (int i = 0; i < length; i++) {
+            tour[i] = squares[(offset + i) % length];
         }
+        PathWriter writer = openPathWriter();
+        if (writer != null) {
+            writer.writeAll(squares, offset, length);
+            writer.close();
+        }
+    }
 
-        // Write the path to a file
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            writer.write(pathList.toString());
-            logger.info("Path: " + pathList);
+    // Method to open the streaming writer of the path files, null when no path file is configured
+    private PathWriter openPathWriter() {
+        if (problem.pathFile == null) {
+            return null;
+        }
+        try {
+            return new PathWriter(topology, problem.pathFile, problem.textPath, problem.closedTour);
         } catch (IOException e) {
             logger.warning("Failed to write path to file." + e);
+            return null;
         }
     }
 }
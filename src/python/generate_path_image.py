@@ -2,10 +2,13 @@ import matplotlib.pyplot as plt
 from matplotlib.patches import FancyArrowPatch, Rectangle
 import colorsys
 import ast
+import tour_file
 
 
 def read_coordinates(file_path):
-    """Reads the coordinates from the input file."""
+    """Reads the coordinates from a binary tour file, or from the text output written with --text-path."""
+    if file_path.endswith('.bin'):
+        return tour_file.read_coordinates(file_path)
     with open(file_path, 'r') as file:
         content = file.read().strip()
     return ast.literal_eval(content)
@@ -116,7 +119,7 @@ def check_coordinates(coordinates):
 
 
 if __name__ == "__main__":
-    file_path = "../../path.txt"
+    file_path = "../../path.bin"
     try:
         coordinates = read_coordinates(file_path)
         isValid = check_coordinates(coordinates)
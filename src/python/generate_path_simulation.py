@@ -1,4 +1,5 @@
 import ast
+import tour_file
 import matplotlib.pyplot as plt
 import matplotlib.animation as animation
 import matplotlib
@@ -9,7 +10,9 @@ matplotlib.use('TkAgg')  # Ensure interactive backend
 
 
 def read_coordinates(file_path):
-    """Reads the coordinates from the input file."""
+    """Reads the coordinates from a binary tour file, or from the text output written with --text-path."""
+    if file_path.endswith('.bin'):
+        return tour_file.read_coordinates(file_path)
     with open(file_path, 'r') as file:
         content = file.read().strip()
     return ast.literal_eval(content)
@@ -188,7 +191,7 @@ def check_coordinates(coordinates):
 
 if __name__ == "__main__":
     # File path input
-    file_path = "../../path.txt"
+    file_path = "../../path.bin"
     try:
         coordinates = read_coordinates(file_path)
         isValid = check_coordinates(coordinates)
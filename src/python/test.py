@@ -1,3 +1,4 @@
+import csv
 import subprocess
 import os
 
@@ -14,7 +15,7 @@ JAVA_BIN_DIR = os.path.abspath(os.path.join(SCRIPT_DIR, '../../bin'))
 
 # Ensure the bin directory exists
 os.makedirs(JAVA_BIN_DIR, exist_ok=True)
-# Define the test cases as a list of dictionaries
+# Define the test cases as [size, strategy, time limit in minutes], run as one batch
 test_cases = [
 #             8, 16, 32, 41, and 52
                 ['8', '1', '15'],   # Out of memory
@@ -45,12 +46,13 @@ test_cases = [
 def compile_java():
     """Compiles the Java code into the bin directory."""
     print('Compiling Java code...')
+    java_files = sorted(
+        os.path.join(JAVA_SRC_DIR, name) for name in os.listdir(JAVA_SRC_DIR) if name.endswith('.java')
+    )
     javac_cmd = [
         'javac',
-        '-cp', '..',
         '-d', JAVA_BIN_DIR,                # Specify output directory for class files
-        os.path.join(JAVA_SRC_DIR, JAVA_FILE_NAME)  # Path to the Java source file
-    ]
+    ] + java_files                         # Every source file, Main depends on the search engines
     compile_process = subprocess.run(javac_cmd,
                                      capture_output=True,
                                      text=True)
@@ -61,17 +63,32 @@ def compile_java():
     print('Compilation succeeded.')
     return True
 
-def run_java(args):
-    """Runs the Java program with the specified arguments."""
+def run_batch(test_cases, workers=1):
+    """Runs every test case in a single JVM using the batch mode and returns its result records."""
+    jobs_file = os.path.join(JAVA_BIN_DIR, 'jobs.txt')
+    results_file = os.path.join(JAVA_BIN_DIR, 'batch-results.csv')
+    with open(jobs_file, 'w') as file:
+        for args in test_cases:
+            file.write(' '.join(args) + '\n')
+
     cmd = [
         'java',
         '-cp', JAVA_BIN_DIR,   # Set classpath to the bin directory
-        JAVA_CLASS_NAME
-    ] + args
+        JAVA_CLASS_NAME,
+        '--batch=' + jobs_file,
+        '--workers=' + str(workers),
+        '--results=' + results_file,
+        '--output-dir=' + os.path.join(JAVA_BIN_DIR, 'paths'),
+    ]
     run_process = subprocess.run(cmd,
                                  capture_output=True,
                                  text=True)
-    return run_process
+    if run_process.returncode != 0:
+        print('Batch run failed:')
+        print(run_process.stderr)
+        return []
+    with open(results_file, newline='') as file:
+        return sorted(csv.DictReader(file), key=lambda record: int(record['job']))
 
 def main():
     # Print Python's current working directory
@@ -89,24 +106,12 @@ def main():
     if not compile_java():
         return
 
-    # Run test cases
-    for args in test_cases:
-        print(f'\nRunning test case with Arguments: {args}')
-
-        # Run the Java program
-        result = run_java(args)
-
-        # Capture and display both stdout and stderr
-        output = result.stdout.strip()
-        error_output = result.stderr.strip()
-
-        if output:
-            print('Standard Output:')
-            print(output)
-
-        if error_output:
-            print('Standard Error:')
-            print(error_output)
+    # Run all test cases in one JVM
+    records = run_batch(test_cases)
+    print(f"\n{'Size':>5} {'Strategy':<20} {'Status':<14} {'Created':>15} {'Expanded':>15} {'Time (ms)':>10}")
+    for record in records:
+        print(f"{record['size']:>5} {record['strategy']:<20} {record['status']:<14} "
+              f"{int(record['nodes_created']):>15,} {int(record['nodes_expanded']):>15,} {record['elapsed_ms']:>10}")
 
 if __name__ == '__main__':
     main()
@@ -0,0 +1,40 @@
+import array
+import mmap
+import struct
+import sys
+
+# Header of the binary tour files written by the solver, see TourFile.java:
+# magic, version, flags, bytes per square, a zero byte, rows, columns and the number of squares, big-endian
+HEADER = struct.Struct('>4sBBBxiii')
+MAGIC = b'KTUR'
+VERSION = 1
+CLOSED = 1
+HOLES = 2
+TYPECODES = {1: 'B', 2: 'H', 4: 'I'}
+
+
+def read_tour(file_path):
+    """Reads a binary tour file, returns (rows, columns, closed, squares) with 0-based square indices."""
+    with open(file_path, 'rb') as file, mmap.mmap(file.fileno(), 0, access=mmap.ACCESS_READ) as data:
+        if len(data) < HEADER.size:
+            raise ValueError(f"{file_path} is too short for a tour file")
+        magic, version, flags, width, rows, columns, length = HEADER.unpack_from(data, 0)
+        if magic != MAGIC:
+            raise ValueError(f"{file_path} is not a tour file")
+        if version > VERSION:
+            raise ValueError(f"{file_path} has tour file version {version}, this reader reads up to {VERSION}")
+        offset = HEADER.size + ((rows * columns + 7) // 8 if flags & HOLES else 0)
+        if len(data) != offset + length * width:
+            raise ValueError(f"{file_path} holds {len(data) - offset} bytes of squares, expected {length * width}")
+
+        squares = array.array(TYPECODES[width])
+        squares.frombytes(data[offset:])
+        if width > 1 and sys.byteorder == 'little':
+            squares.byteswap()
+    return rows, columns, bool(flags & CLOSED), squares
+
+
+def read_coordinates(file_path):
+    """Reads a binary tour file as a list of 1-based (x, y) coordinates, the layout of path.txt."""
+    rows, columns, closed, squares = read_tour(file_path)
+    return [(square // columns + 1, square % columns + 1) for square in squares]